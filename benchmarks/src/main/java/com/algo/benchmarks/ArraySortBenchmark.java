@@ -0,0 +1,125 @@
+package com.algo.benchmarks;
+
+import com.algo.main.algorithms.ExternalMergeSort;
+import com.algo.main.algorithms.InsertionSort;
+import com.algo.main.algorithms.MergeSort;
+import com.algo.main.algorithms.ParallelMergeSort;
+import com.algo.main.algorithms.SortingAlgorithm;
+import com.algo.main.datastructures.DataArray;
+import com.algo.main.datastructures.DiskArray;
+import com.algo.main.datastructures.MappedDiskArray;
+import com.algo.main.datastructures.MemoryArray;
+import com.algo.main.datastructures.OffHeapArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting algorithm benchmarks on every array storage
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ArraySortBenchmark {
+
+    // insertion, merge, parallel or external
+    @Param({"insertion", "merge"})
+    public String algorithm;
+
+    // memory, offheap, disk or mapped
+    @Param({"memory", "disk"})
+    public String storage;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    // random, sorted, reversed or nearlysorted
+    @Param({"random", "sorted", "reversed", "nearlysorted"})
+    public String distribution;
+
+    private SortingAlgorithm sort;
+    private double[] input;
+    private DataArray array;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        sort = createAlgorithm(algorithm);
+        input = InputData.numbers(distribution, size);
+
+        file = File.createTempFile("array_benchmark_", ".bin");
+
+        switch (storage) {
+            case "memory":
+                array = new MemoryArray();
+                break;
+            case "offheap":
+                array = new OffHeapArray();
+                break;
+            case "disk":
+                array = new DiskArray(file.getPath());
+                break;
+            case "mapped":
+                array = new MappedDiskArray(file.getPath());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown storage: " + storage);
+        }
+
+        array.setLength(size);
+    }
+
+    @Setup(Level.Invocation)
+    public void restoreInput() {
+        array.write(0, input, 0, size);
+    }
+
+    @Benchmark
+    public DataArray sortArray() {
+        sort.sortArray(array);
+        return array;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        if (sort instanceof ParallelMergeSort) {
+            ((ParallelMergeSort) sort).close();
+        }
+
+        if (array instanceof DiskArray) {
+            ((DiskArray) array).close();
+        } else if (array instanceof MappedDiskArray) {
+            ((MappedDiskArray) array).close();
+        } else if (array instanceof OffHeapArray) {
+            ((OffHeapArray) array).close();
+        }
+
+        file.delete();
+    }
+
+    /**
+     * Creates a sorting algorithm by name
+     *
+     * @param name insertion, merge, parallel or external
+     * @return sorting algorithm
+     */
+    static SortingAlgorithm createAlgorithm(String name) {
+        switch (name) {
+            case "insertion":
+                return new InsertionSort();
+            case "merge":
+                return new MergeSort();
+            case "parallel":
+                return new ParallelMergeSort();
+            case "external":
+                return new ExternalMergeSort();
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + name);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.algo.benchmarks;
+
+import com.algo.main.datastructures.DataHashTable;
+import com.algo.main.datastructures.DiskHashTable;
+import com.algo.main.datastructures.MemoryHashTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash table get and put benchmarks. Every invocation processes all keys
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HashTableBenchmark {
+
+    // memory or disk
+    @Param({"memory", "disk"})
+    public String table;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    // random or sequential
+    @Param({"random", "sequential"})
+    public String distribution;
+
+    private String[] keys;
+    private File file;
+
+    // table that is searched by the get benchmark
+    private DataHashTable filled;
+
+    // table that is filled by the put benchmark
+    private DataHashTable empty;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        keys = InputData.keys(distribution, size);
+
+        file = File.createTempFile("table_benchmark_", ".bin");
+
+        filled = createTable(new File(file.getPath() + ".filled"));
+
+        for (String key: keys) {
+            filled.put(key, key);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createEmptyTable() {
+        empty = createTable(file);
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (String key: keys) {
+            blackhole.consume(filled.get(key));
+        }
+    }
+
+    @Benchmark
+    public DataHashTable put() {
+        for (String key: keys) {
+            empty.put(key, key);
+        }
+
+        return empty;
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeEmptyTable() {
+        close(empty);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        close(filled);
+
+        // disk tables keep their directory, filter and log in companion files
+        for (String name: new String[] { file.getPath(), file.getPath() + ".filled" }) {
+            DiskHashTable.deleteFiles(name);
+        }
+    }
+
+    /**
+     * Creates a hash table sized like HashSearchCommand does (memory tables get one slot per key)
+     *
+     * @param tableFile file used by a disk table
+     * @return new table
+     */
+    private DataHashTable createTable(File tableFile) {
+        switch (table) {
+            case "memory":
+                return new MemoryHashTable(size);
+            case "disk":
+                // the disk table grows one bucket (page) at a time, so it starts small
+                return new DiskHashTable(tableFile.getPath(), 16);
+            default:
+                throw new IllegalArgumentException("Unknown table: " + table);
+        }
+    }
+
+    /**
+     * Closes a table if it has a file
+     *
+     * @param table table to close
+     */
+    private void close(DataHashTable table) {
+        if (table instanceof DiskHashTable) {
+            ((DiskHashTable) table).close();
+        }
+    }
+}
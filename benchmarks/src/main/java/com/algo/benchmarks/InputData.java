@@ -0,0 +1,103 @@
+package com.algo.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Generates benchmark input with different distributions
+ */
+public class InputData {
+
+    // seed used for all generated data, so every run sorts the same input
+    public static final int SEED = 42;
+
+    private static final char[] availableCharacters = new char[] {
+            'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j',
+            'k', 'l', 'm', 'n', 'o', 'p', 'r', 's', 't', 'u',
+            'v', 'x', 'q', 'w', 'y', 'z', '0', '1', '2', '3',
+            '4', '5', '6', '7', '8', '9'
+    };
+
+    /**
+     * Generates an array of numbers
+     *
+     * @param distribution random, sorted, reversed or nearlysorted (sorted with 1% of elements swapped)
+     * @param size number of elements
+     * @return generated numbers
+     */
+    public static double[] numbers(String distribution, int size) {
+        Random random = new Random(SEED);
+
+        double[] data = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            data[i] = random.nextDouble() * (1 + random.nextInt(1000));
+        }
+
+        switch (distribution) {
+            case "random":
+                break;
+            case "sorted":
+                java.util.Arrays.sort(data);
+                break;
+            case "reversed":
+                java.util.Arrays.sort(data);
+
+                for (int i = 0, j = size - 1; i < j; i++, j--) {
+                    double temp = data[i];
+                    data[i] = data[j];
+                    data[j] = temp;
+                }
+                break;
+            case "nearlysorted":
+                java.util.Arrays.sort(data);
+
+                for (int i = 0; i < size / 100; i++) {
+                    int a = random.nextInt(size);
+                    int b = random.nextInt(size);
+
+                    double temp = data[a];
+                    data[a] = data[b];
+                    data[b] = temp;
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+
+        return data;
+    }
+
+    /**
+     * Generates an array of hash table keys
+     *
+     * @param distribution random (5 random characters, like HashSearchCommand) or sequential ("key" + index)
+     * @param size number of keys
+     * @return generated keys
+     */
+    public static String[] keys(String distribution, int size) {
+        Random random = new Random(SEED);
+
+        String[] keys = new String[size];
+
+        for (int i = 0; i < size; i++) {
+            switch (distribution) {
+                case "random":
+                    char[] chars = new char[5];
+
+                    for (int j = 0; j < chars.length; j++) {
+                        chars[j] = availableCharacters[random.nextInt(availableCharacters.length)];
+                    }
+
+                    keys[i] = new String(chars);
+                    break;
+                case "sequential":
+                    keys[i] = "key" + i;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown distribution: " + distribution);
+            }
+        }
+
+        return keys;
+    }
+}
@@ -0,0 +1,87 @@
+package com.algo.benchmarks;
+
+import com.algo.main.algorithms.SortingAlgorithm;
+import com.algo.main.datastructures.DataList;
+import com.algo.main.datastructures.DiskList;
+import com.algo.main.datastructures.MemoryList;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting algorithm benchmarks on every list storage
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ListSortBenchmark {
+
+    // insertion or merge
+    @Param({"insertion", "merge"})
+    public String algorithm;
+
+    // memory or disk
+    @Param({"memory", "disk"})
+    public String storage;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    // random, sorted, reversed or nearlysorted
+    @Param({"random", "sorted", "reversed", "nearlysorted"})
+    public String distribution;
+
+    private SortingAlgorithm sort;
+    private double[] input;
+    private DataList list;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        sort = ArraySortBenchmark.createAlgorithm(algorithm);
+        input = InputData.numbers(distribution, size);
+
+        file = File.createTempFile("list_benchmark_", ".bin");
+    }
+
+    @Setup(Level.Invocation)
+    public void restoreInput() {
+        // lists can't be refilled in place, so every invocation sorts a new list
+        if (storage.equals("memory")) {
+            list = new MemoryList();
+        } else if (storage.equals("disk")) {
+            list = new DiskList(file.getPath());
+        } else {
+            throw new IllegalArgumentException("Unknown storage: " + storage);
+        }
+
+        for (double value: input) {
+            list.add(value);
+        }
+
+        list.moveToFirst();
+    }
+
+    @Benchmark
+    public DataList sortList() {
+        sort.sortList(list);
+        return list;
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeList() {
+        if (list instanceof DiskList) {
+            ((DiskList) list).close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        file.delete();
+    }
+}
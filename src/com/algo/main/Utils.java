@@ -2,6 +2,9 @@ package com.algo.main;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 
 /**
  * Contains some useful stuff
@@ -25,4 +28,28 @@ public class Utils {
             ex.printStackTrace();
         }
     }
+
+    /**
+     * Frees the memory of a direct buffer right away instead of waiting for the garbage collector.
+     * The buffer can't be used afterwards. Does nothing if the JVM doesn't allow it
+     *
+     * @param buffer direct buffer to free
+     */
+    public static void freeBuffer(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return;
+        }
+
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(field.get(null), buffer);
+        } catch (ReflectiveOperationException ex) {
+            // not supported, the memory will be freed when the buffer is garbage collected
+        }
+    }
 }
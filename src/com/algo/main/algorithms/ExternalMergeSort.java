@@ -0,0 +1,479 @@
+package com.algo.main.algorithms;
+
+import com.algo.main.datastructures.DataArray;
+import com.algo.main.datastructures.DataList;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * External k-way merge sort. Sorts memory-sized runs of the array in RAM, writes them to
+ * temp files and merges up to fan-in runs at a time with a heap, using large sequential reads and writes.
+ * Every sort keeps it's runs in a directory of it's own and deletes only the files it created,
+ * so many sorts can run at once
+ */
+@SuppressWarnings("unused")
+public class ExternalMergeSort implements SortingAlgorithm {
+
+    // directories with the temp files of every sort are created here
+    private static final String TEMP_FILE_DIR = ".";
+
+    // default settings
+    private static final long DEFAULT_MEMORY_BUDGET = 64 * 1024 * 1024;
+    private static final int DEFAULT_FAN_IN = 16;
+
+    // smallest buffer used for reading or writing a run
+    private static final int MIN_BUFFER_SIZE = 8 * 1024;
+
+    // number of bytes a single element occupies
+    private static final int ELEMENT_LENGTH = 8;
+
+    // how many bytes of RAM the sort can use for runs and buffers
+    private long memoryBudget;
+
+    // maximum number of runs merged at once
+    private int fanIn;
+
+    // statistics of the last sort
+    private int passes;
+    private int runs;
+    private long bytesMoved;
+
+    /**
+     * Class constructor
+     */
+    public ExternalMergeSort() {
+        this(DEFAULT_MEMORY_BUDGET, DEFAULT_FAN_IN);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param memoryBudget how many bytes of RAM the sort can use
+     * @param fanIn maximum number of runs merged at once (at least 2)
+     */
+    public ExternalMergeSort(long memoryBudget, int fanIn) {
+        if (memoryBudget < 2 * MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Memory budget must be at least " + (2 * MIN_BUFFER_SIZE) + " bytes");
+        }
+
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("Fan-in must be at least 2");
+        }
+
+        this.memoryBudget = memoryBudget;
+        this.fanIn = fanIn;
+    }
+
+    /**
+     * Sorts an array
+     *
+     * @param array array to sort
+     */
+    @Override
+    public void sortArray(DataArray array) {
+        passes = 0;
+        runs = 0;
+        bytesMoved = 0;
+
+        if (array.length() < 2) {
+            return;
+        }
+
+        int runLength = (int) Math.min(Integer.MAX_VALUE - 8, memoryBudget / ELEMENT_LENGTH);
+
+        // the whole array fits into memory, no temp files are needed
+        if (array.length() <= runLength) {
+            double[] data = new double[(int) array.length()];
+
+            array.read(0, data, 0, data.length);
+            Arrays.sort(data);
+            array.write(0, data, 0, data.length);
+
+            passes = 1;
+            runs = 1;
+            bytesMoved = 2L * data.length * ELEMENT_LENGTH;
+
+            return;
+        }
+
+        // temp files created by this sort
+        List<File> created = new ArrayList<>();
+        File dir = null;
+
+        try {
+            dir = Files.createTempDirectory(Paths.get(TEMP_FILE_DIR), "external_sort_").toFile();
+
+            List<File> files = createRuns(array, runLength, dir, created);
+
+            runs = files.size();
+            passes = 1;
+
+            // merge the runs until the remaining ones can be merged straight into the array
+            while (files.size() > fanIn) {
+                List<File> merged = new ArrayList<>();
+
+                for (int i = 0; i < files.size(); i += fanIn) {
+                    List<File> group = files.subList(i, Math.min(i + fanIn, files.size()));
+
+                    if (group.size() == 1) {
+                        merged.add(group.get(0));
+                        continue;
+                    }
+
+                    File output = tempFile(dir, created);
+
+                    RunWriter writer = new RunWriter(output, bufferSize(group.size()));
+                    mergeRuns(group, writer);
+                    writer.close();
+
+                    for (File file: group) {
+                        file.delete();
+                    }
+
+                    merged.add(output);
+                }
+
+                files = merged;
+                passes++;
+            }
+
+            ArrayWriter writer = new ArrayWriter(array, bufferSize(files.size()));
+            mergeRuns(files, writer);
+            writer.close();
+
+            passes++;
+
+            for (File file: files) {
+                file.delete();
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        } finally {
+            // clean the temp files (merged runs are already deleted, deleting them again does nothing)
+            for (File file: created) {
+                file.delete();
+            }
+
+            if (dir != null) {
+                dir.delete();
+            }
+        }
+    }
+
+    /**
+     * Splits the array into sorted runs, each run is sorted in RAM and written to a temp file
+     *
+     * @param array array to split
+     * @param runLength maximum number of elements in a run
+     * @param dir directory for the run files
+     * @param created list of the sort's temp files, the run files are added to it
+     * @return run files
+     */
+    private List<File> createRuns(DataArray array, int runLength, File dir, List<File> created) throws IOException {
+        List<File> files = new ArrayList<>();
+
+        double[] run = new double[runLength];
+
+        for (long from = 0; from < array.length(); from += runLength) {
+            int length = (int) Math.min(runLength, array.length() - from);
+
+            array.read(from, run, 0, length);
+            Arrays.sort(run, 0, length);
+
+            File file = tempFile(dir, created);
+
+            RunWriter writer = new RunWriter(file, MIN_BUFFER_SIZE * 16);
+
+            for (int i = 0; i < length; i++) {
+                writer.write(run[i]);
+            }
+
+            writer.close();
+
+            bytesMoved += (long) length * ELEMENT_LENGTH; // the writer counts the written bytes
+
+            files.add(file);
+        }
+
+        return files;
+    }
+
+    /**
+     * Merges sorted runs using a heap of run readers
+     *
+     * @param files run files to merge
+     * @param output where to write the merged elements
+     */
+    private void mergeRuns(List<File> files, ElementWriter output) throws IOException {
+        int bufferSize = bufferSize(files.size());
+
+        // min-heap of readers ordered by their current element
+        RunReader[] heap = new RunReader[files.size()];
+        int heapSize = 0;
+
+        for (File file: files) {
+            RunReader reader = new RunReader(file, bufferSize);
+
+            if (reader.hasCurrent()) {
+                heap[heapSize++] = reader;
+            } else {
+                reader.close();
+            }
+        }
+
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heap, heapSize, i);
+        }
+
+        while (heapSize > 0) {
+            RunReader smallest = heap[0];
+
+            output.write(smallest.current());
+
+            if (!smallest.advance()) {
+                smallest.close();
+                heap[0] = heap[--heapSize];
+            }
+
+            siftDown(heap, heapSize, 0);
+        }
+    }
+
+    /**
+     * Moves a heap element down until the heap property holds
+     *
+     * @param heap heap array
+     * @param size number of elements in the heap
+     * @param index index of the element to move
+     */
+    private void siftDown(RunReader[] heap, int size, int index) {
+        RunReader reader = heap[index];
+
+        while (true) {
+            int child = 2 * index + 1;
+
+            if (child >= size) {
+                break;
+            }
+
+            if (child + 1 < size && heap[child + 1].current() < heap[child].current()) {
+                child++;
+            }
+
+            if (reader.current() <= heap[child].current()) {
+                break;
+            }
+
+            heap[index] = heap[child];
+            index = child;
+        }
+
+        heap[index] = reader;
+    }
+
+    /**
+     * Gets the size of a single read/write buffer when merging the given number of runs
+     * (the memory budget is split between the input buffers and the output buffer)
+     *
+     * @param inputs number of merged runs
+     * @return buffer size in bytes
+     */
+    private int bufferSize(int inputs) {
+        long size = memoryBudget / (inputs + 1);
+
+        size = Math.max(MIN_BUFFER_SIZE, Math.min(Integer.MAX_VALUE / 2, size));
+
+        return (int) (size - size % ELEMENT_LENGTH);
+    }
+
+    /**
+     * Creates a unique temp file
+     *
+     * @param dir directory of the sort's temp files
+     * @param created list of the sort's temp files, the new file is added to it
+     * @return temp file
+     */
+    private File tempFile(File dir, List<File> created) throws IOException {
+        File file = File.createTempFile("run_", ".bin", dir);
+
+        created.add(file);
+
+        return file;
+    }
+
+    /**
+     * Sorts a list
+     *
+     * @param list list to sort
+     */
+    @Override
+    public void sortList(DataList list) {
+        if (list.length() < 2) {
+            return;
+        }
+
+        list.sort();
+    }
+
+    // GETTERS
+    public int getPasses() { return passes; }
+    public int getRuns() { return runs; }
+    public long getBytesMoved() { return bytesMoved; }
+    public long getMemoryBudget() { return memoryBudget; }
+    public int getFanIn() { return fanIn; }
+
+    /**
+     * Destination of merged elements
+     */
+    private interface ElementWriter {
+
+        /**
+         * Writes the next element
+         * @param value element to write
+         */
+        void write(double value) throws IOException;
+    }
+
+    /**
+     * Sequentially reads a run file through a large buffer
+     */
+    private class RunReader {
+
+        private RandomAccessFile file;
+        private FileChannel channel;
+        private ByteBuffer buffer;
+        private double current;
+        private boolean hasCurrent;
+
+        private RunReader(File run, int bufferSize) throws IOException {
+            file = new RandomAccessFile(run, "r");
+            channel = file.getChannel();
+
+            buffer = ByteBuffer.allocate(bufferSize);
+            buffer.flip(); // empty buffer
+
+            advance();
+        }
+
+        /**
+         * Moves to the next element
+         * @return true if there was a next element
+         */
+        private boolean advance() throws IOException {
+            if (buffer.remaining() < ELEMENT_LENGTH) {
+                buffer.compact();
+
+                int read = 0;
+
+                while (buffer.hasRemaining() && (read = channel.read(buffer)) > 0) {
+                    bytesMoved += read;
+                }
+
+                buffer.flip();
+            }
+
+            hasCurrent = buffer.remaining() >= ELEMENT_LENGTH;
+
+            if (hasCurrent) {
+                current = buffer.getDouble();
+            }
+
+            return hasCurrent;
+        }
+
+        private double current() { return current; }
+        private boolean hasCurrent() { return hasCurrent; }
+
+        private void close() throws IOException {
+            file.close();
+        }
+    }
+
+    /**
+     * Sequentially writes a run file through a large buffer
+     */
+    private class RunWriter implements ElementWriter {
+
+        private RandomAccessFile file;
+        private FileChannel channel;
+        private ByteBuffer buffer;
+
+        private RunWriter(File run, int bufferSize) throws IOException {
+            file = new RandomAccessFile(run, "rw");
+            channel = file.getChannel();
+
+            buffer = ByteBuffer.allocate(bufferSize);
+        }
+
+        @Override
+        public void write(double value) throws IOException {
+            if (buffer.remaining() < ELEMENT_LENGTH) {
+                flush();
+            }
+
+            buffer.putDouble(value);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                bytesMoved += channel.write(buffer);
+            }
+
+            buffer.clear();
+        }
+
+        private void close() throws IOException {
+            flush();
+            file.close();
+        }
+    }
+
+    /**
+     * Writes merged elements into the sorted array with bulk writes
+     */
+    private class ArrayWriter implements ElementWriter {
+
+        private DataArray array;
+        private double[] buffer;
+        private int buffered;
+        private long position;
+
+        private ArrayWriter(DataArray array, int bufferSize) {
+            this.array = array;
+
+            buffer = new double[bufferSize / ELEMENT_LENGTH];
+        }
+
+        @Override
+        public void write(double value) {
+            if (buffered == buffer.length) {
+                flush();
+            }
+
+            buffer[buffered++] = value;
+        }
+
+        private void flush() {
+            array.write(position, buffer, 0, buffered);
+
+            position += buffered;
+            bytesMoved += (long) buffered * ELEMENT_LENGTH;
+            buffered = 0;
+        }
+
+        private void close() {
+            flush();
+        }
+    }
+}
@@ -17,11 +17,22 @@ public class InsertionSort implements SortingAlgorithm {
      */
     @Override
     public void sortArray(DataArray array) {
-        for (int i = 1; i < array.length(); i++) {
-            int a = i;
-            int b = i - 1;
+        sortRange(array, 0, array.length() - 1);
+    }
+
+    /**
+     * Sorts a range of an array
+     *
+     * @param array array to sort
+     * @param left starting index of the range
+     * @param right ending index of the range
+     */
+    public void sortRange(DataArray array, long left, long right) {
+        for (long i = left + 1; i <= right; i++) {
+            long a = i;
+            long b = i - 1;
 
-            while (b >= 0 && array.get(b) > array.get(a)) {
+            while (b >= left && array.get(b) > array.get(a)) {
                 array.swap(a, b);
 
                 a--;
@@ -5,15 +5,41 @@ import com.algo.main.datastructures.DataList;
 import com.algo.main.datastructures.DiskArray;
 import com.algo.main.datastructures.MemoryArray;
 
-import java.io.File;
-
 /**
- * Merge sort implementation
+ * Merge sort implementation. Ranges up to the cutoff length are sorted with insertion sort,
+ * and halves that are already in order are not merged. Disk arrays are sorted with the external
+ * merge sort, which uses large sequential reads and writes instead of temp files for every merge
  */
 public class MergeSort implements SortingAlgorithm {
 
-    // temp files will be stored here
-    private final String TEMP_FILE_DIR = "./merge_sort/";
+    // default length of a range that is sorted with insertion sort
+    protected static final int DEFAULT_INSERTION_SORT_CUTOFF = 16;
+
+    // ranges with this many or fewer elements are sorted with insertion sort
+    private int insertionSortCutoff;
+
+    // sorts the small ranges of data arrays
+    private InsertionSort insertionSort = new InsertionSort();
+
+    // sorts disk arrays
+    private ExternalMergeSort externalSort = new ExternalMergeSort();
+
+    /**
+     * Class constructor
+     */
+    public MergeSort() {
+        this(DEFAULT_INSERTION_SORT_CUTOFF);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param insertionSortCutoff ranges with this many or fewer elements are sorted with insertion sort
+     *                            (1 or less disables insertion sort)
+     */
+    public MergeSort(int insertionSortCutoff) {
+        this.insertionSortCutoff = insertionSortCutoff;
+    }
 
     /**
      * Sorts an array
@@ -26,29 +52,94 @@ public class MergeSort implements SortingAlgorithm {
             return;
         }
 
-        if (array instanceof DiskArray) {
-            // create a directory for temp files
-            File dir = new File(TEMP_FILE_DIR);
+        if (array instanceof MemoryArray) {
+            double[] data = ((MemoryArray) array).getData();
 
-            if (!dir.exists()) {
-                dir.mkdirs();
-            }
+            // one scratch array for the whole sort, merge levels alternate between it and the data
+            sortData(data.clone(), data, 0, data.length - 1);
+
+            return;
+        }
+
+        if (array instanceof DiskArray) {
+            externalSort.sortArray(array);
+            return;
         }
 
         sort(array, 0, array.length() - 1);
+    }
 
-        if (array instanceof DiskArray) {
-            // clean the temp files
-            File dir = new File(TEMP_FILE_DIR);
+    /**
+     * Recursively sorts a range of in-memory data without allocating anything. Both arrays must hold
+     * the same elements in the range, the sorted range ends up in dest and src is used as scratch space
+     *
+     * @param src source array (same elements as dest)
+     * @param dest destination array
+     * @param left starting index of the range
+     * @param right ending index of the range
+     */
+    protected void sortData(double[] src, double[] dest, int left, int right) {
+        if (right - left < insertionSortCutoff) {
+            insertionSortData(dest, left, right);
+            return;
+        }
 
-            if (dir.exists()) {
-                File[] files = dir.listFiles();
+        if (right > left) {
+            int middle = (left + right) >>> 1;
+
+            // sort both halves into src, using dest as scratch space
+            sortData(dest, src, left, middle);
+            sortData(dest, src, middle + 1, right);
 
-                for (File file: files) {
-                    file.delete();
-                }
+            mergeData(src, dest, left, right, middle);
+        }
+    }
 
-                dir.delete();
+    /**
+     * Sorts a range of in-memory data with insertion sort
+     *
+     * @param data array to sort
+     * @param left starting index of the range
+     * @param right ending index of the range
+     */
+    private static void insertionSortData(double[] data, int left, int right) {
+        for (int i = left + 1; i <= right; i++) {
+            double value = data[i];
+            int j = i - 1;
+
+            while (j >= left && data[j] > value) {
+                data[j + 1] = data[j];
+                j--;
+            }
+
+            data[j + 1] = value;
+        }
+    }
+
+    /**
+     * Merges two sorted sub-arrays of src into dest (equal elements are taken from the left one first,
+     * which keeps the sort stable). If the sub-arrays are already in order they are just copied
+     *
+     * @param src array with the sorted sub-arrays
+     * @param dest array to merge into
+     * @param left starting index of the first sub-array
+     * @param right ending index of the second sub-array
+     * @param middle ending index of the first sub-array
+     */
+    protected static void mergeData(double[] src, double[] dest, int left, int right, int middle) {
+        if (src[middle] <= src[middle + 1]) {
+            System.arraycopy(src, left, dest, left, right - left + 1);
+            return;
+        }
+
+        int i = left;
+        int j = middle + 1;
+
+        for (int index = left; index <= right; index++) {
+            if (j > right || (i <= middle && src[i] <= src[j])) {
+                dest[index] = src[i++];
+            } else {
+                dest[index] = src[j++];
             }
         }
     }
@@ -60,13 +151,23 @@ public class MergeSort implements SortingAlgorithm {
      * @param left starting index of the array
      * @param right ending index of the array
      */
-    private void sort(DataArray array, int left, int right) {
+    private void sort(DataArray array, long left, long right) {
+        if (right - left < insertionSortCutoff) {
+            insertionSort.sortRange(array, left, right);
+            return;
+        }
+
         if (right > left) {
-            int middle = (left + right) / 2;
+            long middle = (left + right) / 2;
 
             sort(array, left, middle); // sort the left half of the array
             sort(array, middle + 1, right); // sort the right half of the array
 
+            // the halves are already in order, no need to merge them
+            if (array.get(middle) <= array.get(middle + 1)) {
+                return;
+            }
+
             merge(array, left, right, middle); // merge the two halves
         }
     }
@@ -79,41 +180,27 @@ public class MergeSort implements SortingAlgorithm {
      * @param right ending index of the second sub-array
      * @param middle ending index of the first sub-array/starting index of the second sub-array
      */
-    private void merge(DataArray array, int left, int right, int middle) {
-        int firstLength = middle - left + 1;
-        int secondLength = right - middle;
-
-        DataArray tempLeft;
-        DataArray tempRight;
+    private void merge(DataArray array, long left, long right, long middle) {
+        long firstLength = middle - left + 1;
+        long secondLength = right - middle;
 
-        if (array instanceof MemoryArray) {
-            tempLeft = new MemoryArray();
-            tempLeft.setLength(firstLength);
-
-            tempRight = new MemoryArray();
-            tempRight.setLength(secondLength);
-        } else {
-            tempLeft = new DiskArray(TEMP_FILE_DIR + "temp_left_" + System.currentTimeMillis() + ".bin");
-            tempLeft.setLength(firstLength);
+        // memory-mapped and off-heap arrays use RAM for the temporary arrays, creating (and mapping) two files
+        // for every merge would be far slower than the sort itself (disk arrays never get here)
+        DataArray tempLeft = new MemoryArray();
+        tempLeft.setLength(firstLength);
 
-            tempRight = new DiskArray(TEMP_FILE_DIR + "temp_right_" + System.currentTimeMillis() + ".bin");
-            tempRight.setLength(secondLength);
-        }
+        DataArray tempRight = new MemoryArray();
+        tempRight.setLength(secondLength);
 
         // copy data into temporary arrays
-        for (int i = 0; i < firstLength; i++) {
-            tempLeft.set(i, array.get(left + i));
-        }
-
-        for (int i = 0; i < secondLength; i++) {
-            tempRight.set(i, array.get(middle + 1 + i));
-        }
+        array.copy(left, tempLeft, 0, firstLength);
+        array.copy(middle + 1, tempRight, 0, secondLength);
 
         // merge sub-arrays
-        int arrayIndex = left;
+        long arrayIndex = left;
 
-        int i = 0;
-        int j = 0;
+        long i = 0;
+        long j = 0;
 
         while (i < firstLength && j < secondLength) {
             if (tempLeft.get(i) <= tempRight.get(j)) {
@@ -126,13 +213,10 @@ public class MergeSort implements SortingAlgorithm {
         }
 
         // if there are any elements left in the temp arrays, then add them
-        while (i < firstLength) {
-            array.set(arrayIndex++, tempLeft.get(i++));
-        }
+        tempLeft.copy(i, array, arrayIndex, firstLength - i);
+        arrayIndex += firstLength - i;
 
-        while (j < secondLength) {
-            array.set(arrayIndex++, tempRight.get(j++));
-        }
+        tempRight.copy(j, array, arrayIndex, secondLength - j);
     }
 
     /**
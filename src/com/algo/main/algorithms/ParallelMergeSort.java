@@ -0,0 +1,146 @@
+package com.algo.main.algorithms;
+
+import com.algo.main.datastructures.DataArray;
+import com.algo.main.datastructures.MemoryArray;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Merge sort that sorts memory arrays on multiple threads using a fork-join pool.
+ * Other arrays are sorted by the sequential merge sort. The sort is stable, so it
+ * gives the same result as the sequential one. The pool's threads are stopped by close()
+ */
+@SuppressWarnings("unused")
+public class ParallelMergeSort extends MergeSort {
+
+    // default size of a range that is no longer split between threads
+    private static final int DEFAULT_THRESHOLD = 8192;
+
+    // pool that runs the sorting tasks
+    private ForkJoinPool pool;
+
+    // ranges smaller than this are sorted on the current thread
+    private int threshold;
+
+    /**
+     * Class constructor (uses all available processors)
+     */
+    public ParallelMergeSort() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Class constructor (uses the default threshold)
+     *
+     * @param parallelism number of threads used for sorting
+     */
+    public ParallelMergeSort(int parallelism) {
+        this(parallelism, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param parallelism number of threads used for sorting
+     * @param threshold ranges smaller than this are not split between threads
+     */
+    public ParallelMergeSort(int parallelism, int threshold) {
+        this(parallelism, threshold, DEFAULT_INSERTION_SORT_CUTOFF);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param parallelism number of threads used for sorting
+     * @param threshold ranges smaller than this are not split between threads
+     * @param insertionSortCutoff ranges with this many or fewer elements are sorted with insertion sort
+     */
+    public ParallelMergeSort(int parallelism, int threshold, int insertionSortCutoff) {
+        super(insertionSortCutoff);
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+
+        if (threshold < 2) {
+            throw new IllegalArgumentException("Threshold must be at least 2");
+        }
+
+        this.threshold = threshold;
+
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Sorts an array
+     *
+     * @param array array to sort
+     */
+    @Override
+    public void sortArray(DataArray array) {
+        if (!(array instanceof MemoryArray) || array.length() < 2) {
+            super.sortArray(array);
+            return;
+        }
+
+        double[] data = ((MemoryArray) array).getData();
+
+        // one scratch array for the whole sort, merge levels alternate between it and the data
+        // (tasks never work on overlapping ranges, so they can share it)
+        pool.invoke(new SortTask(this, threshold, data.clone(), data, 0, data.length - 1));
+    }
+
+    /**
+     * Stops the pool's threads, the sorter can't be used afterwards
+     */
+    public void close() {
+        pool.shutdown();
+    }
+
+    // GETTERS
+    public int getParallelism() { return pool.getParallelism(); }
+    public int getThreshold() { return threshold; }
+
+    /**
+     * Sorts a range, splitting it into two parallel tasks if it is large enough
+     */
+    private static class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        // sorter whose sequential merge sort is used for the small ranges
+        private transient ParallelMergeSort sort;
+
+        private int threshold;
+        private double[] src;
+        private double[] dest;
+        private int left;
+        private int right;
+
+        private SortTask(ParallelMergeSort sort, int threshold, double[] src, double[] dest, int left, int right) {
+            this.sort = sort;
+            this.threshold = threshold;
+            this.src = src;
+            this.dest = dest;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        protected void compute() {
+            if (right - left < threshold) {
+                sort.sortData(src, dest, left, right);
+                return;
+            }
+
+            int middle = (left + right) >>> 1;
+
+            // sort both halves into src, using dest as scratch space
+            invokeAll(new SortTask(sort, threshold, dest, src, left, middle),
+                    new SortTask(sort, threshold, dest, src, middle + 1, right));
+
+            mergeData(src, dest, left, right, middle);
+        }
+    }
+}
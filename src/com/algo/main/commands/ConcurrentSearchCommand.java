@@ -0,0 +1,226 @@
+package com.algo.main.commands;
+
+import com.algo.main.datastructures.ConcurrentHashTable;
+import com.algo.main.datastructures.DataHashTable;
+import com.algo.main.datastructures.MemoryHashTable;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Performs a multi-threaded stress and search throughput test on a concurrent hash table
+ */
+@SuppressWarnings("Duplicates")
+public class ConcurrentSearchCommand extends Command {
+
+    /**
+     * Class constructor
+     */
+    public ConcurrentSearchCommand() {
+        super("concsearch", "Performs multi-threaded search on a concurrent hash table");
+    }
+
+    /**
+     * Executes the command
+     *
+     * @return true if the screen needs to stop listening for other commands
+     */
+    @Override
+    public boolean execute() {
+        Scanner scanner = new Scanner(System.in);
+
+        System.out.println("Enter seed used for data generation:");
+        int seed = scanner.nextInt();
+
+        System.out.println("Enter the number of elements:");
+        int size = scanner.nextInt();
+
+        System.out.println("Enter the maximum number of threads:");
+        int maxThreads = scanner.nextInt();
+
+        scanner.nextLine();
+
+        String[] data = generateData(seed, size);
+
+        if (!stressTest(data, maxThreads)) {
+            return false;
+        }
+
+        ConcurrentHashTable table = new ConcurrentHashTable(size);
+
+        for (String s: data) {
+            table.put(s, s);
+        }
+
+        // single-threaded baseline
+        MemoryHashTable memoryTable = new MemoryHashTable(size);
+
+        for (String s: data) {
+            memoryTable.put(s, s);
+        }
+
+        long startTime = System.currentTimeMillis();
+        search(memoryTable, data, 0, data.length);
+        long timeTook = Math.max(1, System.currentTimeMillis() - startTime);
+
+        System.out.println("MemoryHashTable, 1 thread: " + timeTook + " milliseconds, "
+                + (data.length / timeTook) + " searches per millisecond");
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            timeTook = Math.max(1, searchInParallel(table, data, threads));
+
+            System.out.println("ConcurrentHashTable, " + threads + " threads: " + timeTook + " milliseconds, "
+                    + ((long) data.length * threads / timeTook) + " searches per millisecond");
+        }
+
+        return false;
+    }
+
+    /**
+     * Inserts the data from many threads at once while other threads search the table,
+     * then checks that every element was inserted
+     *
+     * @param data elements to insert
+     * @param threadCount number of writing threads (the same number of threads read)
+     * @return true if the table is correct
+     */
+    private boolean stressTest(String[] data, int threadCount) {
+        System.out.println("Inserting " + data.length + " elements from " + threadCount + " threads...");
+
+        // a small initial capacity makes the table resize while it's being used
+        ConcurrentHashTable table = new ConcurrentHashTable(16);
+
+        // number of wrong values seen by the reading threads
+        AtomicInteger wrongValues = new AtomicInteger();
+
+        Thread[] threads = new Thread[threadCount * 2];
+
+        for (int i = 0; i < threadCount; i++) {
+            int from = (int) ((long) data.length * i / threadCount);
+            int to = (int) ((long) data.length * (i + 1) / threadCount);
+
+            threads[i] = new Thread(() -> {
+                for (int j = from; j < to; j++) {
+                    table.put(data[j], data[j]);
+                }
+            });
+
+            threads[threadCount + i] = new Thread(() -> {
+                for (int j = from; j < to; j++) {
+                    String value = table.get(data[j]);
+
+                    // an element is either not inserted yet or inserted with the right value
+                    if (value != null && !value.equals(data[j])) {
+                        wrongValues.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        runAll(threads);
+
+        int missing = 0;
+
+        for (String s: data) {
+            if (!s.equals(table.get(s))) {
+                missing++;
+            }
+        }
+
+        int expected = (int) Arrays.stream(data).distinct().count();
+
+        if (missing > 0 || wrongValues.get() > 0 || table.elementCount() != expected) {
+            System.out.println("Stress test failed: " + missing + " elements missing, "
+                    + wrongValues.get() + " wrong values read, "
+                    + table.elementCount() + " elements in the table, expected " + expected);
+            return false;
+        }
+
+        System.out.println("Stress test passed");
+
+        return true;
+    }
+
+    /**
+     * Searches all data from the given number of threads, every thread searches all elements
+     *
+     * @param table table to search
+     * @param data elements to search for
+     * @param threadCount number of threads
+     * @return time it took in milliseconds
+     */
+    private long searchInParallel(DataHashTable table, String[] data, int threadCount) {
+        Thread[] threads = new Thread[threadCount];
+
+        for (int i = 0; i < threadCount; i++) {
+            // each thread starts at a different element, so they don't read the same slots at the same time
+            int offset = (int) ((long) data.length * i / threadCount);
+
+            threads[i] = new Thread(() -> {
+                search(table, data, offset, data.length);
+                search(table, data, 0, offset);
+            });
+        }
+
+        long startTime = System.currentTimeMillis();
+        runAll(threads);
+
+        return System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Searches for a range of elements
+     *
+     * @param table table to search
+     * @param data elements to search for
+     * @param from index of the first element
+     * @param to index after the last element
+     */
+    private void search(DataHashTable table, String[] data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (table.get(data[i]) == null) {
+                throw new IllegalStateException("Element " + data[i] + " not found");
+            }
+        }
+    }
+
+    /**
+     * Starts all threads and waits for them to finish
+     *
+     * @param threads threads to run
+     */
+    private void runAll(Thread[] threads) {
+        for (Thread thread: threads) {
+            thread.start();
+        }
+
+        try {
+            for (Thread thread: threads) {
+                thread.join();
+            }
+        } catch (InterruptedException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Generates an array of strings
+     *
+     * @param seed seed used when generating strings
+     * @param count number of strings
+     * @return generated string array
+     */
+    private String[] generateData(int seed, int count) {
+        String[] data = new String[count];
+
+        Random random = new Random(seed);
+
+        for (int i = 0; i < count; i++) {
+            data[i] = Integer.toString(random.nextInt(), 36);
+        }
+
+        return data;
+    }
+}
@@ -0,0 +1,136 @@
+package com.algo.main.commands;
+
+import com.algo.main.datastructures.DiskHashTable;
+import com.algo.main.datastructures.Durability;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Scanner;
+
+/**
+ * Checks that a disk hash table with a write-ahead log keeps what it's durability mode promises when the program
+ * crashes. Elements are inserted by another JVM that is halted without closing the table, then the table is reopened
+ * and the recovered elements are counted
+ */
+@SuppressWarnings("Duplicates")
+public class DurabilityCrashCommand extends Command {
+
+    // file used by the tested tables
+    private static final String FILE_NAME = "table_crash.bin";
+
+    /**
+     * Class constructor
+     */
+    public DurabilityCrashCommand() {
+        super("crashtest", "Checks what a disk hash table recovers after a crash with every durability mode");
+    }
+
+    /**
+     * Executes the command
+     *
+     * @return true if the screen needs to stop listening for other commands
+     */
+    @Override
+    public boolean execute() {
+        Scanner scanner = new Scanner(System.in);
+
+        System.out.println("Enter the number of elements:");
+        int size = scanner.nextInt();
+
+        System.out.println("Enter the sync interval of the periodic mode in milliseconds:");
+        int syncInterval = scanner.nextInt();
+
+        scanner.nextLine();
+
+        if (size < 1 || syncInterval < 1) {
+            System.out.println("The number of elements and the sync interval must be positive");
+            return false;
+        }
+
+        // the periodic mode must have synced everything after the table was idle for longer than an interval
+        crash(Durability.PERIODIC, size, syncInterval, 2L * syncInterval + 1000);
+
+        // the batch mode syncs every put before it returns, so nothing is lost even without waiting
+        crash(Durability.BATCH, size, syncInterval, 0);
+
+        return false;
+    }
+
+    /**
+     * Inserts elements in another JVM that crashes afterwards, reopens the table and checks
+     * that every element was recovered
+     *
+     * @param durability durability mode of the table
+     * @param size number of elements to insert
+     * @param syncInterval milliseconds between log syncs in periodic mode
+     * @param idleTime milliseconds between the last put and the crash
+     */
+    private void crash(Durability durability, int size, int syncInterval, long idleTime) {
+        deleteFiles();
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                DurabilityCrashCommand.class.getName(), FILE_NAME, durability.name(), Integer.toString(syncInterval),
+                Integer.toString(size), Long.toString(idleTime));
+
+        builder.inheritIO();
+
+        try {
+            int exitCode = builder.start().waitFor();
+
+            if (exitCode != 0) {
+                System.out.println(durability + ": the crashing process failed with exit code " + exitCode);
+                return;
+            }
+        } catch (IOException | InterruptedException ex) {
+            ex.printStackTrace();
+            return;
+        }
+
+        DiskHashTable table = new DiskHashTable(FILE_NAME);
+
+        int recovered = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (Integer.toString(i).equals(table.get("key" + i))) {
+                recovered++;
+            }
+        }
+
+        table.close();
+
+        System.out.println(durability + ", crashed " + idleTime + " milliseconds after the last put: recovered "
+                + recovered + " of " + size + " elements - " + (recovered == size ? "PASSED" : "FAILED"));
+
+        deleteFiles();
+    }
+
+    /**
+     * Deletes the files of the tested table
+     */
+    private void deleteFiles() {
+        DiskHashTable.deleteFiles(FILE_NAME);
+    }
+
+    /**
+     * Entry point of the crashing JVM: inserts the elements, waits and halts without closing the table
+     *
+     * @param args file name, durability mode, sync interval, number of elements, milliseconds to wait
+     */
+    public static void main(String[] args) throws InterruptedException {
+        DiskHashTable table = new DiskHashTable(args[0], 16);
+        table.setDurability(Durability.valueOf(args[1]), Long.parseLong(args[2]));
+
+        int size = Integer.parseInt(args[3]);
+
+        for (int i = 0; i < size; i++) {
+            table.put("key" + i, Integer.toString(i));
+        }
+
+        Thread.sleep(Long.parseLong(args[4]));
+
+        // no shutdown hooks, no flushing, the same as the process being killed
+        Runtime.getRuntime().halt(0);
+    }
+}
@@ -0,0 +1,124 @@
+package com.algo.main.commands;
+
+import com.algo.main.datastructures.DiskHashTable;
+import com.algo.main.datastructures.Durability;
+import com.algo.main.datastructures.WriteAheadLog;
+
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Measures how fast elements are inserted into a disk hash table with every durability mode,
+ * one element at a time and in batches
+ */
+@SuppressWarnings("Duplicates")
+public class DurableInsertCommand extends Command {
+
+    // file used by the tested tables
+    private static final String FILE_NAME = "table_durable.bin";
+
+    /**
+     * Class constructor
+     */
+    public DurableInsertCommand() {
+        super("durableput", "Measures insertion into a disk hash table with every durability mode");
+    }
+
+    /**
+     * Executes the command
+     *
+     * @return true if the screen needs to stop listening for other commands
+     */
+    @Override
+    public boolean execute() {
+        Scanner scanner = new Scanner(System.in);
+
+        System.out.println("Enter seed used for data generation:");
+        int seed = scanner.nextInt();
+
+        System.out.println("Enter the number of elements:");
+        int size = scanner.nextInt();
+
+        System.out.println("Enter the batch size:");
+        int batchSize = scanner.nextInt();
+
+        scanner.nextLine();
+
+        if (size < 1 || batchSize < 1) {
+            System.out.println("The number of elements and the batch size must be positive");
+            return false;
+        }
+
+        String[] data = generateData(seed, size);
+
+        for (Durability durability: Durability.values()) {
+            insert(durability, data, 1);
+            insert(durability, data, batchSize);
+        }
+
+        DiskHashTable.deleteFiles(FILE_NAME);
+
+        return false;
+    }
+
+    /**
+     * Inserts the data into a new table and prints how long it took
+     *
+     * @param durability durability mode of the table
+     * @param data elements to insert
+     * @param batchSize number of elements inserted with a single putAll call, 1 to use put
+     */
+    private void insert(Durability durability, String[] data, int batchSize) {
+        DiskHashTable table = new DiskHashTable(FILE_NAME, 16);
+        table.setDurability(durability);
+
+        long startTime = System.currentTimeMillis();
+
+        if (batchSize == 1) {
+            for (String s: data) {
+                table.put(s, s);
+            }
+        } else {
+            for (int from = 0; from < data.length; from += batchSize) {
+                int length = Math.min(batchSize, data.length - from);
+
+                String[] batch = new String[length];
+                System.arraycopy(data, from, batch, 0, length);
+
+                table.putAll(batch, batch);
+            }
+        }
+
+        // the inserted elements are on the disk only after the table is flushed (or the log is synced)
+        table.flush();
+
+        long timeTook = Math.max(1, System.currentTimeMillis() - startTime);
+
+        WriteAheadLog log = table.getLog();
+
+        System.out.println(durability + (batchSize == 1 ? ", single puts: " : ", batches of " + batchSize + ": ")
+                + timeTook + " milliseconds, " + ((long) data.length * 1000 / timeTook) + " puts per second, "
+                + (log != null ? log.getSyncs() : 0) + " log syncs, " + table.getCheckpoints() + " checkpoints");
+
+        table.close();
+    }
+
+    /**
+     * Generates an array of strings
+     *
+     * @param seed seed used when generating strings
+     * @param count number of strings
+     * @return generated string array
+     */
+    private String[] generateData(int seed, int count) {
+        String[] data = new String[count];
+
+        Random random = new Random(seed);
+
+        for (int i = 0; i < count; i++) {
+            data[i] = Integer.toString(random.nextInt(), 36);
+        }
+
+        return data;
+    }
+}
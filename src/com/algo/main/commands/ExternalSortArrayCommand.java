@@ -0,0 +1,85 @@
+package com.algo.main.commands;
+
+import com.algo.main.algorithms.ExternalMergeSort;
+import com.algo.main.datastructures.DiskArray;
+
+import java.util.Scanner;
+
+/**
+ * Sorts a disk array using external k-way merge sort
+ */
+@SuppressWarnings("Duplicates")
+public class ExternalSortArrayCommand extends Command {
+
+    // array with data
+    private DiskArray array;
+
+    /**
+     * Class constructor
+     */
+    public ExternalSortArrayCommand() {
+        super("arrextsort", "Sorts a disk array using external k-way merge sort");
+    }
+
+    /**
+     * Executes the command
+     *
+     * @return true if the screen needs to stop listening for other commands
+     */
+    @Override
+    public boolean execute() {
+        Scanner scanner = new Scanner(System.in);
+
+        System.out.println("Enter seed used for data generation:");
+        int seed = scanner.nextInt();
+
+        System.out.println("Enter memory budget in kilobytes:");
+        long memoryBudget = scanner.nextLong() * 1024;
+
+        System.out.println("Enter fan-in (maximum number of runs merged at once):");
+        int fanIn = scanner.nextInt();
+
+        ExternalMergeSort sort = new ExternalMergeSort(memoryBudget, fanIn);
+
+        int[] testSizes = new int[] {
+                10000, 30000, 90000, 270000, 810000, 2430000, 7290000
+        };
+
+        scanner.nextLine();
+
+        for (int size: testSizes) {
+            array = new DiskArray("external_array_" + size + ".bin");
+            array.generateData(seed, size);
+
+            System.out.println("Sorting " + size + " elements...");
+
+            long startTime = System.currentTimeMillis();
+            sort.sortArray(array);
+            long endTime = System.currentTimeMillis();
+
+            System.out.println("Done. Sorting took " + (endTime - startTime) + " milliseconds");
+            System.out.println("Runs: " + sort.getRuns() + ", passes: " + sort.getPasses()
+                    + ", bytes moved: " + sort.getBytesMoved());
+
+            System.out.println("Do you want to print the array? (yes/no):");
+            String answer = scanner.nextLine();
+
+            if (answer.equalsIgnoreCase("yes")) {
+                System.out.println("Enter starting element index:");
+                int startIndex = scanner.nextInt();
+
+                System.out.println("Enter number of elements to print:");
+                int numberOfElements = scanner.nextInt();
+
+                scanner.nextLine();
+
+                System.out.println("Array elements from " + startIndex + " to " + (startIndex + numberOfElements));
+                array.print(startIndex, numberOfElements);
+            }
+
+            array.close();
+        }
+
+        return false;
+    }
+}
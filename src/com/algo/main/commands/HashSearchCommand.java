@@ -1,9 +1,20 @@
 package com.algo.main.commands;
 
+import com.algo.main.datastructures.ArenaHashTable;
+import com.algo.main.datastructures.ConcurrentHashTable;
 import com.algo.main.datastructures.DataHashTable;
 import com.algo.main.datastructures.DiskHashTable;
+import com.algo.main.datastructures.DiskLongHashTable;
+import com.algo.main.datastructures.DoubleIntHashTable;
+import com.algo.main.datastructures.LongDoubleHashTable;
+import com.algo.main.datastructures.LongHashTable;
+import com.algo.main.datastructures.LsmHashTable;
 import com.algo.main.datastructures.MemoryHashTable;
+import com.algo.main.datastructures.MemoryLongHashTable;
+import com.algo.main.datastructures.OpenAddressingHashTable;
+import com.algo.main.datastructures.PageCache;
 
+import java.util.Arrays;
 import java.util.Random;
 import java.util.Scanner;
 
@@ -13,6 +24,9 @@ import java.util.Scanner;
 @SuppressWarnings("Duplicates")
 public class HashSearchCommand extends Command {
 
+    // number of keys searched for at once by the batched search test
+    private static final int BATCH_SIZE = 4096;
+
     // hash table used when testing
     private DataHashTable table;
 
@@ -57,19 +71,18 @@ public class HashSearchCommand extends Command {
             length = scanner.nextInt();
         }
 
-        System.out.println("Enter the type of hash table (normal or disk):");
+        System.out.println("Enter the type of hash table (normal, open, concurrent, arena, disk, lsm or primitive):");
         scanner.nextLine();
         String tableType = scanner.nextLine();
 
-        if (tableType.equalsIgnoreCase("normal")) {
-            table = new MemoryHashTable(length);
+        if (tableType.equalsIgnoreCase("primitive")) {
+            // numeric keys can't be entered as strings, primitive tables are tested with generated data
+            performPrimitiveTests(seed);
+        } else if (generateData) {
+            performSearchTests(scanner, seed, tableType);
         } else {
-            table = new DiskHashTable("table.bin", length);
-        }
+            table = createTable(tableType, "table.bin", length);
 
-        if (generateData) {
-            performSearchTests(scanner, seed, tableType.equalsIgnoreCase("normal"));
-        } else {
             String[] data = new String[length];
 
             // read data from the console and insert it into the table
@@ -125,37 +138,46 @@ public class HashSearchCommand extends Command {
      *
      * @param scanner scanner to read user input
      * @param seed seed used to generate data
-     * @param normalTable is the table normal or disk
+     * @param tableType type of the table (normal, open, concurrent, arena, disk or lsm)
      */
-    private void performSearchTests(Scanner scanner, int seed, boolean normalTable) {
+    private void performSearchTests(Scanner scanner, int seed, String tableType) {
+        boolean diskTable = tableType.equalsIgnoreCase("disk");
+        boolean lsmTable = tableType.equalsIgnoreCase("lsm");
+
         int[] testSizes = new int[] {
                 50000, 100000, 200000, 400000, 800000, 1600000, 3200000
         };
 
-        if (!normalTable) {
+        if (diskTable || lsmTable) {
             testSizes = new int[] {
-                    100, 200, 400, 800, 1600, 3200, 6400
+                    10000, 20000, 40000, 80000, 160000, 320000, 640000
             };
         }
 
         for (int size: testSizes) {
-            if (normalTable) {
-                table = new MemoryHashTable(size);
-            } else {
-                table = new DiskHashTable("table_" + size + ".bin", size);
-            }
+            table = createTable(tableType, "table_" + size + ".bin", size);
 
             String[] data = generateData(seed, size);
 
             // insert the data into the table
+            long startTime = System.currentTimeMillis();
+
             for (String s: data) {
                 table.put(s, s);
             }
 
+            if (diskTable || lsmTable) {
+                System.out.println("Inserting " + size + " elements took " + (System.currentTimeMillis() - startTime) + " milliseconds");
+            }
+
+            if (diskTable) {
+                ((DiskHashTable) table).getCache().resetStatistics();
+            }
+
             System.out.println("Searching a hash table with " + size + " elements...");
 
             // perform search
-            long startTime = System.currentTimeMillis();
+            startTime = System.currentTimeMillis();
 
             for (String s: data) {
                 table.get(s);
@@ -165,11 +187,291 @@ public class HashSearchCommand extends Command {
 
             System.out.println("Searching took " + timeTook + " milliseconds");
 
+            // perform the same search in batches
+            startTime = System.currentTimeMillis();
+
+            for (int from = 0; from < data.length; from += BATCH_SIZE) {
+                table.getAll(Arrays.copyOfRange(data, from, Math.min(data.length, from + BATCH_SIZE)));
+            }
+
+            timeTook = System.currentTimeMillis() - startTime;
+
+            System.out.println("Searching in batches of " + BATCH_SIZE + " took " + timeTook + " milliseconds");
+
             System.out.println("Chains in the table: " + table.chainCount());
 
-            if (!normalTable) {
-                ((DiskHashTable) table).close();
+            // a key repeated in a batch must end up with it's last value, the same as with separate puts
+            table.put(data[0], "first");
+            table.putAll(new String[] {data[0], data[0]}, new String[] {"second", "third"});
+
+            String repeatedValue = table.get(data[0]);
+
+            System.out.println("Key repeated in a batch: " + ("third".equals(repeatedValue)
+                    ? "the last value is kept" : "WRONG value " + repeatedValue));
+
+            table.put(data[0], data[0]);
+
+            if (!diskTable && !lsmTable) {
+                System.out.println("Heap used by the table: " + measureHeap(tableType, seed, size) + " bytes per element");
+            }
+
+            if (diskTable) {
+                // keys generated with another seed are (almost) never in the table
+                String[] absentData = generateData(seed + 1, size);
+
+                long avoidedReads = ((DiskHashTable) table).getAvoidedReads();
+
+                startTime = System.currentTimeMillis();
+
+                for (String s: absentData) {
+                    table.get(s);
+                }
+
+                timeTook = System.currentTimeMillis() - startTime;
+
+                System.out.println("Searching for " + size + " absent elements took " + timeTook + " milliseconds, "
+                        + (((DiskHashTable) table).getAvoidedReads() - avoidedReads) + " lookups answered by the Bloom filter");
+            }
+
+            if (diskTable) {
+                PageCache cache = ((DiskHashTable) table).getCache();
+
+                System.out.println("Page cache hits: " + cache.getHits() + ", misses: " + cache.getMisses());
+
+                DiskHashTable diskHashTable = (DiskHashTable) table;
+
+                // removed elements leave holes in the pages until the table is compacted
+                for (int i = 0; i < data.length; i += 2) {
+                    diskHashTable.remove(data[i]);
+                }
+
+                int pages = diskHashTable.getPageCount();
+
+                startTime = System.currentTimeMillis();
+                diskHashTable.compact();
+                timeTook = System.currentTimeMillis() - startTime;
+
+                System.out.println("Removed every second element, compacting took " + timeTook + " milliseconds, pages: "
+                        + pages + " -> " + diskHashTable.getPageCount());
+
+                diskHashTable.close();
+
+                // a closed disk table can be opened again without inserting the elements
+                startTime = System.currentTimeMillis();
+                DiskHashTable reopened = new DiskHashTable("table_" + size + ".bin");
+                timeTook = System.currentTimeMillis() - startTime;
+
+                System.out.println("Reopening took " + timeTook + " milliseconds, elements in the table: "
+                        + reopened.elementCount());
+
+                reopened.close();
+            }
+
+            if (lsmTable) {
+                LsmHashTable lsmHashTable = (LsmHashTable) table;
+
+                System.out.println("Memtable flushes: " + lsmHashTable.getFlushes() + ", compactions: "
+                        + lsmHashTable.getCompactions());
+
+                lsmHashTable.close();
+            }
+        }
+    }
+
+    /**
+     * Compares the hash tables with primitive keys and values against the String hash tables
+     * storing the same numbers converted to strings
+     *
+     * @param seed seed used to generate data
+     */
+    private void performPrimitiveTests(int seed) {
+        int[] testSizes = new int[] {
+                100000, 400000, 1600000
+        };
+
+        for (int size: testSizes) {
+            Random random = new Random(seed);
+
+            long[] keys = new long[size];
+            double[] doubleKeys = new double[size];
+
+            for (int i = 0; i < size; i++) {
+                keys[i] = random.nextLong();
+                doubleKeys[i] = random.nextDouble() * size;
+            }
+
+            System.out.println("Testing hash tables with " + size + " numeric elements...");
+
+            MemoryHashTable stringTable = new MemoryHashTable(size);
+
+            printTimes("MemoryHashTable (long -> long as strings)", measure(() -> {
+                for (long key: keys) {
+                    stringTable.put(Long.toString(key), Long.toString(key));
+                }
+            }), measure(() -> {
+                for (long key: keys) {
+                    Long.parseLong(stringTable.get(Long.toString(key)));
+                }
+            }));
+
+            MemoryLongHashTable longTable = new MemoryLongHashTable(size);
+            testLongTable("MemoryLongHashTable (long -> long)", longTable, keys);
+
+            LongDoubleHashTable longDoubleTable = new LongDoubleHashTable(new MemoryLongHashTable(size));
+
+            printTimes("LongDoubleHashTable (long -> double)", measure(() -> {
+                for (long key: keys) {
+                    longDoubleTable.put(key, key * 0.5);
+                }
+            }), measure(() -> {
+                for (long key: keys) {
+                    longDoubleTable.get(key, Double.NaN);
+                }
+            }));
+
+            DoubleIntHashTable doubleIntTable = new DoubleIntHashTable(new MemoryLongHashTable(size));
+
+            printTimes("DoubleIntHashTable (double -> int)", measure(() -> {
+                for (int i = 0; i < doubleKeys.length; i++) {
+                    doubleIntTable.put(doubleKeys[i], i);
+                }
+            }), measure(() -> {
+                for (double key: doubleKeys) {
+                    doubleIntTable.get(key, -1);
+                }
+            }));
+
+            // the disk tables are much slower, they are compared on the smaller sizes only
+            if (size > 400000) {
+                continue;
             }
+
+            DiskHashTable diskStringTable = new DiskHashTable("table_" + size + ".bin", 16);
+
+            printTimes("DiskHashTable (long -> long as strings)", measure(() -> {
+                for (long key: keys) {
+                    diskStringTable.put(Long.toString(key), Long.toString(key));
+                }
+            }), measure(() -> {
+                for (long key: keys) {
+                    Long.parseLong(diskStringTable.get(Long.toString(key)));
+                }
+            }));
+
+            diskStringTable.close();
+
+            DiskLongHashTable diskLongTable = new DiskLongHashTable("table_long_" + size + ".bin", 16);
+            testLongTable("DiskLongHashTable (long -> long)", diskLongTable, keys);
+
+            diskLongTable.close();
+        }
+    }
+
+    /**
+     * Inserts and searches long keys in a long hash table and prints how long it took
+     *
+     * @param name name of the table to print
+     * @param table table to test
+     * @param keys keys to insert and search (the values are the keys)
+     */
+    private void testLongTable(String name, LongHashTable table, long[] keys) {
+        printTimes(name, measure(() -> {
+            for (long key: keys) {
+                table.put(key, key);
+            }
+        }), measure(() -> {
+            for (long key: keys) {
+                if (table.get(key, 0) != key) {
+                    throw new IllegalStateException("Element " + key + " not found");
+                }
+            }
+        }));
+    }
+
+    /**
+     * Measures how long a task takes
+     *
+     * @param task task to run
+     * @return time it took in milliseconds
+     */
+    private long measure(Runnable task) {
+        long startTime = System.currentTimeMillis();
+
+        task.run();
+
+        return System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Prints the insertion and search times of a table
+     *
+     * @param name name of the table
+     * @param insertTime insertion time in milliseconds
+     * @param searchTime search time in milliseconds
+     */
+    private void printTimes(String name, long insertTime, long searchTime) {
+        System.out.println(name + ": inserting took " + insertTime + " milliseconds, searching took "
+                + searchTime + " milliseconds");
+    }
+
+    /**
+     * Measures how much heap a table holding generated elements takes. The keys and values are not referenced
+     * from anywhere else, so the strings kept by the table are counted too
+     *
+     * @param tableType type of the table (normal, open, concurrent or arena)
+     * @param seed seed used to generate data
+     * @param count number of elements
+     * @return approximate number of bytes per element
+     */
+    private long measureHeap(String tableType, int seed, int count) {
+        Runtime runtime = Runtime.getRuntime();
+
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+
+        DataHashTable measured = createTable(tableType, null, count);
+        Random random = new Random(seed);
+
+        for (int i = 0; i < count; i++) {
+            measured.put(generateString(random, 5), generateString(random, 5));
+        }
+
+        System.gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+
+        // keeps the table reachable until the heap is measured
+        if (measured.elementCount() == 0) {
+            return 0;
+        }
+
+        return Math.max(0, after - before) / count;
+    }
+
+    /**
+     * Creates a hash table of the given type
+     *
+     * @param tableType type of the table (normal, open, concurrent, arena, disk or lsm)
+     * @param fileName file used by a disk table
+     * @param capacity initial number of slots
+     * @return new hash table
+     */
+    private DataHashTable createTable(String tableType, String fileName, int capacity) {
+        if (tableType.equalsIgnoreCase("normal")) {
+            return new MemoryHashTable(capacity);
+        } else if (tableType.equalsIgnoreCase("open")) {
+            return new OpenAddressingHashTable(capacity);
+        } else if (tableType.equalsIgnoreCase("concurrent")) {
+            return new ConcurrentHashTable(capacity);
+        } else if (tableType.equalsIgnoreCase("arena")) {
+            return new ArenaHashTable(capacity);
+        } else if (tableType.equalsIgnoreCase("lsm")) {
+            return new LsmHashTable(fileName);
+        } else {
+            // disk table grows one bucket (page) at a time, so it starts small
+            DiskHashTable diskTable = new DiskHashTable(fileName, 16);
+            diskTable.useBloomFilter(0.01);
+
+            return diskTable;
         }
     }
 
@@ -0,0 +1,179 @@
+package com.algo.main.commands;
+
+import com.algo.main.datastructures.DataHashTable;
+import com.algo.main.datastructures.MemoryHashTable;
+import com.algo.main.datastructures.OpenAddressingHashTable;
+import com.algo.main.datastructures.StandardHashFunction;
+
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Compares the hash functions by the chain and probe lengths they produce and by search time,
+ * so a hash function can be chosen for a workload
+ */
+@SuppressWarnings("Duplicates")
+public class HashStatisticsCommand extends Command {
+
+    // number of histogram entries printed (longer chains are printed as one entry)
+    private static final int HISTOGRAM_LENGTH = 8;
+
+    private final char[] availableCharacters = new char[] {
+            'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j',
+            'k', 'l', 'm', 'n', 'o', 'p', 'r', 's', 't', 'u',
+            'v', 'x', 'q', 'w', 'y', 'z', '0', '1', '2', '3',
+            '4', '5', '6', '7', '8', '9'
+    };
+
+    /**
+     * Class constructor
+     */
+    public HashStatisticsCommand() {
+        super("hashstats", "Compares hash functions by chain and probe lengths");
+    }
+
+    /**
+     * Executes the command
+     *
+     * @return true if the screen needs to stop listening for other commands
+     */
+    @Override
+    public boolean execute() {
+        Scanner scanner = new Scanner(System.in);
+
+        System.out.println("Enter seed used for data generation:");
+        int seed = scanner.nextInt();
+
+        System.out.println("Enter the number of elements:");
+        int size = scanner.nextInt();
+
+        scanner.nextLine();
+
+        if (size < 1) {
+            System.out.println("The number of elements must be positive");
+            return false;
+        }
+
+        String[] randomKeys = new String[size];
+        String[] sequentialKeys = new String[size];
+
+        Random random = new Random(seed);
+
+        for (int i = 0; i < size; i++) {
+            randomKeys[i] = generateString(random, 5);
+            sequentialKeys[i] = "id" + i;
+        }
+
+        System.out.println("Random 5-character keys:");
+        compareHashFunctions(randomKeys);
+
+        System.out.println("Sequential keys (id0, id1, ...):");
+        compareHashFunctions(sequentialKeys);
+
+        return false;
+    }
+
+    /**
+     * Prints the statistics of every hash function for the given keys
+     *
+     * @param keys keys to insert
+     */
+    private void compareHashFunctions(String[] keys) {
+        for (StandardHashFunction hashFunction: StandardHashFunction.values()) {
+            for (boolean powerOfTwo: new boolean[] {false, true}) {
+                MemoryHashTable table = new MemoryHashTable(keys.length, hashFunction, powerOfTwo);
+
+                long time = insertAndSearch(table, keys);
+
+                int[] histogram = table.chainLengthHistogram();
+
+                printStatistics("  MemoryHashTable, " + hashFunction + (powerOfTwo ? ", mask: " : ", modulo: ")
+                        + time + " ms, chain lengths", histogram, true);
+            }
+
+            OpenAddressingHashTable table = new OpenAddressingHashTable(keys.length, hashFunction);
+
+            long time = insertAndSearch(table, keys);
+
+            printStatistics("  OpenAddressingHashTable, " + hashFunction + ": " + time + " ms, probe lengths",
+                    table.probeLengthHistogram(), false);
+        }
+    }
+
+    /**
+     * Inserts all keys into a table and searches for them
+     *
+     * @param table table to use
+     * @param keys keys to insert and search
+     * @return time it took in milliseconds
+     */
+    private long insertAndSearch(DataHashTable table, String[] keys) {
+        long startTime = System.currentTimeMillis();
+
+        for (String key: keys) {
+            table.put(key, key);
+        }
+
+        for (String key: keys) {
+            table.get(key);
+        }
+
+        return System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Prints the average and maximum length and the beginning of a histogram
+     *
+     * @param title text printed before the statistics
+     * @param histogram element i is the number of chains (or elements) with length i
+     * @param chains true for chain lengths (empty slots are not counted in the average),
+     *               false for probe distances (a search probes distance + 1 slots)
+     */
+    private void printStatistics(String title, int[] histogram, boolean chains) {
+        long count = 0;
+        long total = 0;
+
+        for (int length = chains ? 1 : 0; length < histogram.length; length++) {
+            count += histogram[length];
+            total += (long) histogram[length] * (chains ? length : length + 1);
+        }
+
+        StringBuilder line = new StringBuilder(title);
+
+        line.append(String.format(": average %.2f, max %d, histogram", count == 0 ? 0.0 : (double) total / count,
+                chains ? histogram.length - 1 : histogram.length));
+
+        for (int length = 0; length < Math.min(histogram.length, HISTOGRAM_LENGTH); length++) {
+            line.append(' ').append(chains ? length : length + 1).append(':').append(histogram[length]);
+        }
+
+        if (histogram.length > HISTOGRAM_LENGTH) {
+            int longer = 0;
+
+            for (int length = HISTOGRAM_LENGTH; length < histogram.length; length++) {
+                longer += histogram[length];
+            }
+
+            line.append(" more:").append(longer);
+        }
+
+        System.out.println(line);
+    }
+
+    /**
+     * Generates a string with the given random object
+     *
+     * @param random random used when generating the string
+     * @param length number of characters in the string
+     * @return generated string
+     */
+    private String generateString(Random random, int length) {
+        char[] characters = new char[length];
+
+        for (int i = 0; i < length; i++) {
+            characters[i] = availableCharacters[random.nextInt(availableCharacters.length)];
+        }
+
+        return new String(characters);
+    }
+}
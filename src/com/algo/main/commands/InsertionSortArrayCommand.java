@@ -3,7 +3,10 @@ package com.algo.main.commands;
 import com.algo.main.algorithms.InsertionSort;
 import com.algo.main.datastructures.DataArray;
 import com.algo.main.datastructures.DiskArray;
+import com.algo.main.datastructures.MappedDiskArray;
 import com.algo.main.datastructures.MemoryArray;
+import com.algo.main.datastructures.OffHeapArray;
+import com.algo.main.datastructures.PageCache;
 import com.algo.main.datastructures.Printable;
 
 import java.util.Scanner;
@@ -56,19 +59,23 @@ public class InsertionSortArrayCommand extends Command {
             length = scanner.nextInt();
         }
 
-        System.out.println("Enter the type of array (normal or disk):");
+        System.out.println("Enter the type of array (normal, offheap, disk or mapped):");
         scanner.nextLine();
         String arrayType = scanner.nextLine();
 
-        if (arrayType.equalsIgnoreCase("normal")) {
-            array = new MemoryArray();
-        } else {
-            array = new DiskArray("insertion_array.bin");
-        }
-
         if (generateData) {
-            performArrayTests(scanner, seed, arrayType.equalsIgnoreCase("normal"));
+            performArrayTests(scanner, seed, arrayType);
         } else {
+            if (arrayType.equalsIgnoreCase("normal")) {
+                array = new MemoryArray();
+            } else if (arrayType.equalsIgnoreCase("offheap")) {
+                array = new OffHeapArray();
+            } else if (arrayType.equalsIgnoreCase("mapped")) {
+                array = new MappedDiskArray("insertion_array.bin");
+            } else {
+                array = new DiskArray("insertion_array.bin");
+            }
+
             array.setLength(length);
 
             // read data from the console and insert it into the array
@@ -87,6 +94,8 @@ public class InsertionSortArrayCommand extends Command {
             ((Printable) array).print();
 
             System.out.println("Sorting took " + (endTime - startTime) + " milliseconds");
+
+            closeArray();
         }
 
         return false;
@@ -96,12 +105,16 @@ public class InsertionSortArrayCommand extends Command {
      * Performs insertion sort tests with a data array
      * @param scanner scanner used to listen to user input
      * @param seed seed used to generate the data
-     * @param normalArray is the array normal or disk
+     * @param arrayType type of the array (normal, offheap, disk or mapped)
      */
-    private void performArrayTests(Scanner scanner, int seed, boolean normalArray) {
+    private void performArrayTests(Scanner scanner, int seed, String arrayType) {
+        boolean normalArray = arrayType.equalsIgnoreCase("normal");
+        boolean mappedArray = arrayType.equalsIgnoreCase("mapped");
+        boolean offHeapArray = arrayType.equalsIgnoreCase("offheap");
+
         int[] testSizes;
 
-        if (normalArray) {
+        if (normalArray || mappedArray || offHeapArray) {
             testSizes = new int[] {
                     1000, 2000, 4000, 8000, 16000, 32000, 64000
             };
@@ -114,12 +127,19 @@ public class InsertionSortArrayCommand extends Command {
         boolean printed = false;
 
         for (int size: testSizes) {
-            array = normalArray ? new MemoryArray() : new DiskArray("insertion_array_" + size + ".bin");
-
             if (normalArray) {
+                array = new MemoryArray();
                 ((MemoryArray) array).generateData(seed, size);
+            } else if (offHeapArray) {
+                array = new OffHeapArray();
+                ((OffHeapArray) array).generateData(seed, size);
+            } else if (mappedArray) {
+                array = new MappedDiskArray("insertion_array_" + size + ".bin");
+                ((MappedDiskArray) array).generateData(seed, size);
             } else {
+                array = new DiskArray("insertion_array_" + size + ".bin");
                 ((DiskArray) array).generateData(seed, size);
+                ((DiskArray) array).getCache().resetStatistics();
             }
 
             System.out.println("Sorting " + size + " elements...");
@@ -132,6 +152,12 @@ public class InsertionSortArrayCommand extends Command {
 
             System.out.println("Done. Sorting took " + timeTook + " milliseconds");
 
+            if (array instanceof DiskArray) {
+                PageCache cache = ((DiskArray) array).getCache();
+
+                System.out.println("Page cache hits: " + cache.getHits() + ", misses: " + cache.getMisses());
+            }
+
             System.out.println("Do you want to print the array? (yes/no):");
 
             if (printed) {
@@ -155,9 +181,20 @@ public class InsertionSortArrayCommand extends Command {
                 printed = false;
             }
 
-            if (!normalArray) {
-                ((DiskArray) array).close();
-            }
+            closeArray();
+        }
+    }
+
+    /**
+     * Closes the array if it holds memory or a file outside of the Java heap
+     */
+    private void closeArray() {
+        if (array instanceof OffHeapArray) {
+            ((OffHeapArray) array).close();
+        } else if (array instanceof MappedDiskArray) {
+            ((MappedDiskArray) array).close();
+        } else if (array instanceof DiskArray) {
+            ((DiskArray) array).close();
         }
     }
 }
@@ -1,9 +1,14 @@
 package com.algo.main.commands;
 
 import com.algo.main.algorithms.MergeSort;
+import com.algo.main.algorithms.ParallelMergeSort;
+import com.algo.main.algorithms.SortingAlgorithm;
 import com.algo.main.datastructures.DataArray;
 import com.algo.main.datastructures.DiskArray;
+import com.algo.main.datastructures.MappedDiskArray;
 import com.algo.main.datastructures.MemoryArray;
+import com.algo.main.datastructures.OffHeapArray;
+import com.algo.main.datastructures.PageCache;
 import com.algo.main.datastructures.Printable;
 
 import java.util.Scanner;
@@ -15,7 +20,7 @@ import java.util.Scanner;
 public class MergeSortArrayCommand extends Command {
 
     // sorting algorithm
-    private MergeSort sort;
+    private SortingAlgorithm sort;
 
     // array with data
     private DataArray array;
@@ -56,19 +61,35 @@ public class MergeSortArrayCommand extends Command {
             length = scanner.nextInt();
         }
 
-        System.out.println("Enter the type of array (normal or disk):");
+        System.out.println("Enter the type of array (normal, offheap, disk or mapped):");
         scanner.nextLine();
         String arrayType = scanner.nextLine();
 
+        sort = new MergeSort();
+
         if (arrayType.equalsIgnoreCase("normal")) {
-            array = new MemoryArray();
-        } else {
-            array = new DiskArray("merge_array.bin");
+            System.out.println("Enter the number of threads (1 for sequential sort):");
+            int threads = scanner.nextInt();
+            scanner.nextLine();
+
+            if (threads > 1) {
+                sort = new ParallelMergeSort(threads);
+            }
         }
 
         if (generateData) {
-            performArrayTests(scanner, seed, arrayType.equalsIgnoreCase("normal"));
+            performArrayTests(scanner, seed, arrayType);
         } else {
+            if (arrayType.equalsIgnoreCase("normal")) {
+                array = new MemoryArray();
+            } else if (arrayType.equalsIgnoreCase("offheap")) {
+                array = new OffHeapArray();
+            } else if (arrayType.equalsIgnoreCase("mapped")) {
+                array = new MappedDiskArray("merge_array.bin");
+            } else {
+                array = new DiskArray("merge_array.bin");
+            }
+
             array.setLength(length);
 
             // read data from the console and insert it into the array
@@ -87,6 +108,13 @@ public class MergeSortArrayCommand extends Command {
             ((Printable) array).print();
 
             System.out.println("Sorting took " + (endTime - startTime) + " milliseconds");
+
+            closeArray();
+        }
+
+        // a new sorter is created on every run, so the parallel sorter's threads are stopped now
+        if (sort instanceof ParallelMergeSort) {
+            ((ParallelMergeSort) sort).close();
         }
 
         return false;
@@ -96,12 +124,16 @@ public class MergeSortArrayCommand extends Command {
      * Performs merge sort tests with a data array
      * @param scanner scanner used to listen to user input
      * @param seed seed used to generate the data
-     * @param normalArray is the array normal or disk
+     * @param arrayType type of the array (normal, offheap, disk or mapped)
      */
-    private void performArrayTests(Scanner scanner, int seed, boolean normalArray) {
+    private void performArrayTests(Scanner scanner, int seed, String arrayType) {
+        boolean normalArray = arrayType.equalsIgnoreCase("normal");
+        boolean mappedArray = arrayType.equalsIgnoreCase("mapped");
+        boolean offHeapArray = arrayType.equalsIgnoreCase("offheap");
+
         int[] testSizes;
 
-        if (normalArray) {
+        if (normalArray || mappedArray || offHeapArray) {
             testSizes = new int[] {
                     10000, 30000, 90000, 270000, 810000, 2430000, 7290000
             };
@@ -114,12 +146,19 @@ public class MergeSortArrayCommand extends Command {
         boolean printed = false;
 
         for (int size: testSizes) {
-            array = normalArray ? new MemoryArray() : new DiskArray("merge_array_" + size + ".bin");
-
             if (normalArray) {
+                array = new MemoryArray();
                 ((MemoryArray) array).generateData(seed, size);
+            } else if (offHeapArray) {
+                array = new OffHeapArray();
+                ((OffHeapArray) array).generateData(seed, size);
+            } else if (mappedArray) {
+                array = new MappedDiskArray("merge_array_" + size + ".bin");
+                ((MappedDiskArray) array).generateData(seed, size);
             } else {
+                array = new DiskArray("merge_array_" + size + ".bin");
                 ((DiskArray) array).generateData(seed, size);
+                ((DiskArray) array).getCache().resetStatistics();
             }
 
             System.out.println("Sorting " + size + " elements...");
@@ -132,6 +171,12 @@ public class MergeSortArrayCommand extends Command {
 
             System.out.println("Done. Sorting took " + timeTook + " milliseconds");
 
+            if (array instanceof DiskArray) {
+                PageCache cache = ((DiskArray) array).getCache();
+
+                System.out.println("Page cache hits: " + cache.getHits() + ", misses: " + cache.getMisses());
+            }
+
             System.out.println("Do you want to print the array? (yes/no):");
 
             if (printed) {
@@ -154,9 +199,21 @@ public class MergeSortArrayCommand extends Command {
             } else {
                 printed = false;
             }
+
+            // every size gets a new array, the old one's memory, mapping or file is released right away
+            closeArray();
         }
+    }
 
-        if (!normalArray) {
+    /**
+     * Closes the array if it holds memory or a file outside of the Java heap
+     */
+    private void closeArray() {
+        if (array instanceof OffHeapArray) {
+            ((OffHeapArray) array).close();
+        } else if (array instanceof MappedDiskArray) {
+            ((MappedDiskArray) array).close();
+        } else if (array instanceof DiskArray) {
             ((DiskArray) array).close();
         }
     }
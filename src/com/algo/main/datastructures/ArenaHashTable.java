@@ -0,0 +1,515 @@
+package com.algo.main.datastructures;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Hash table with it's elements stored in RAM without an object per element. Keys and values are encoded
+ * as UTF-8 into large shared byte arrays (arenas), and the chains are kept in primitive arrays
+ * that reference the records by their position in the arenas. Keys are compared as bytes, and the hash
+ * code of every element is cached, so resizing doesn't read the keys.
+ *
+ * An element takes 16 bytes of entry arrays and 4 bytes of slots besides it's encoded key and value,
+ * instead of a chain node and two String objects. Updated values are appended as new records,
+ * the arenas are compacted when more than half of their bytes are old records
+ */
+@SuppressWarnings("unused")
+public class ArenaHashTable implements DataHashTable {
+
+    /**
+     * IMPORTANT
+     *
+     * Record layout in an arena: key length, value length (both variable-length integers,
+     * 7 bits per byte, the highest bit set if more bytes follow), key bytes, value bytes.
+     * A record never crosses arenas, a record larger than an arena gets an arena of it's own
+     */
+
+    // how many of the hash table needs to be filled in order for it to expand
+    private static final double loadFactor = 0.75;
+
+    // number of bytes in an arena
+    private static final int ARENA_SIZE = 1024 * 1024;
+
+    // slot or next entry value marking the end of a chain
+    private static final int NONE = -1;
+
+    // first entry of every slot's chain
+    private int[] slots;
+
+    // number of slots (always a power of two)
+    private int capacity;
+
+    // capacity - 1, used instead of modulo
+    private int mask;
+
+    // entries: next entry in the chain, cached hash code, record position (arena index << 32 | offset)
+    private int[] next;
+    private int[] hashes;
+    private long[] records;
+
+    // how many elements are in the table (entries are never removed, so it's also the number of entries)
+    private int elements;
+
+    // arenas holding the records, only the last one is being filled
+    private byte[][] arenas = new byte[1][];
+    private int arenaCount;
+
+    // next free byte of the last arena
+    private int arenaEnd;
+
+    // number of arena bytes used by records and by old records replaced by updates
+    private long usedBytes;
+    private long garbageBytes;
+
+    // function computing the hash codes of the keys
+    private HashFunction hashFunction;
+
+    /**
+     * Class constructor
+     * @param capacity how many slots does the hash table have initially (rounded up to a power of two)
+     */
+    public ArenaHashTable(int capacity) {
+        this(capacity, StandardHashFunction.MIXED);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param capacity how many slots does the hash table have initially (rounded up to a power of two)
+     * @param hashFunction function computing the hash codes of the keys (the low bits select the slot)
+     */
+    public ArenaHashTable(int capacity, HashFunction hashFunction) {
+        this.hashFunction = hashFunction;
+
+        this.capacity = 2;
+
+        while (this.capacity < capacity && this.capacity < (1 << 30)) {
+            this.capacity <<= 1;
+        }
+
+        mask = this.capacity - 1;
+
+        slots = new int[this.capacity];
+        Arrays.fill(slots, NONE);
+
+        int entries = (int) (this.capacity * loadFactor) + 1;
+
+        next = new int[entries];
+        hashes = new int[entries];
+        records = new long[entries];
+    }
+
+    /**
+     * Inserts a new element or updates the existing one
+     *
+     * @param key   key of the element
+     * @param value value of the element
+     *
+     * @return put value
+     */
+    @Override
+    public String put(String key, String value) {
+        int hash = hashFunction.hash(key);
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+
+        int entry = find(key, hash);
+
+        if (entry != NONE) {
+            // the old record becomes garbage, it's length is counted before it's replaced
+            long position = records[entry];
+
+            garbageBytes += recordLength(arenas[(int) (position >>> 32)], (int) position);
+
+            records[entry] = appendRecord(keyBytes, valueBytes);
+
+            if (garbageBytes > usedBytes / 2 && garbageBytes > ARENA_SIZE) {
+                compact();
+            }
+
+            return value;
+        }
+
+        if (elements + 1 > capacity * loadFactor && capacity < (1 << 30)) {
+            resize(capacity * 2);
+        }
+
+        if (elements == next.length) {
+            int length = (int) Math.min(Integer.MAX_VALUE - 8, next.length + (next.length >> 1) + 1L);
+
+            next = Arrays.copyOf(next, length);
+            hashes = Arrays.copyOf(hashes, length);
+            records = Arrays.copyOf(records, length);
+        }
+
+        entry = elements++;
+
+        int index = hash & mask;
+
+        hashes[entry] = hash;
+        records[entry] = appendRecord(keyBytes, valueBytes);
+        next[entry] = slots[index];
+        slots[index] = entry;
+
+        return value;
+    }
+
+    /**
+     * Inserts new elements or updates the existing ones. The table is resized at most once
+     * for the whole batch
+     *
+     * @param keys keys of the elements
+     * @param values values of the elements (values[i] is the value of keys[i])
+     */
+    @Override
+    public void putAll(String[] keys, String[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("There must be a value for every key");
+        }
+
+        // grow to the final size up front (existing keys are counted too, so the table may end up larger)
+        int newCapacity = capacity;
+
+        while (elements + keys.length > newCapacity * loadFactor && newCapacity < (1 << 30)) {
+            newCapacity <<= 1;
+        }
+
+        if (newCapacity != capacity) {
+            resize(newCapacity);
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            put(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * Gets an element from the hash table
+     *
+     * @param key key value of the element
+     * @return value of the element with the specified key, null if the key doesn't exist
+     */
+    @Override
+    public String get(String key) {
+        int entry = find(key, hashFunction.hash(key));
+
+        return entry == NONE ? null : readValue(records[entry]);
+    }
+
+    /**
+     * Gets many elements from the hash table at once
+     *
+     * @param keys key values of the elements
+     * @return values of the elements in the same order as the keys, null for the keys that don't exist
+     */
+    @Override
+    public String[] getAll(String[] keys) {
+        String[] values = new String[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = get(keys[i]);
+        }
+
+        return values;
+    }
+
+    /**
+     * Finds the entry of a key
+     *
+     * @param key key to look for
+     * @param hash hash code of the key
+     * @return entry index, NONE if the key doesn't exist
+     */
+    private int find(String key, int hash) {
+        for (int entry = slots[hash & mask]; entry != NONE; entry = next[entry]) {
+            // keys are only compared when the hash codes match
+            if (hashes[entry] == hash && keyEquals(records[entry], key)) {
+                return entry;
+            }
+        }
+
+        return NONE;
+    }
+
+    /**
+     * Checks if the record at the given position has the given key. ASCII keys are compared
+     * character by character with the record's bytes without encoding them
+     *
+     * @param position record position
+     * @param key key to compare with
+     * @return true if the keys are equal
+     */
+    private boolean keyEquals(long position, String key) {
+        byte[] arena = arenas[(int) (position >>> 32)];
+        int offset = (int) position;
+
+        long keyLength = readLength(arena, offset);
+        offset += lengthSize(keyLength);
+        offset += lengthSize(readLength(arena, offset));
+
+        int length = key.length();
+
+        // every character takes at least one byte
+        if (keyLength < length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+
+            if (c >= 0x80) {
+                byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+                return keyBytes.length == keyLength && Arrays.equals(arena, offset, offset + keyBytes.length,
+                        keyBytes, 0, keyBytes.length);
+            }
+
+            if (arena[offset + i] != (byte) c) {
+                return false;
+            }
+        }
+
+        return keyLength == length;
+    }
+
+    /**
+     * Reads the value of a record
+     *
+     * @param position record position
+     * @return value
+     */
+    private String readValue(long position) {
+        byte[] arena = arenas[(int) (position >>> 32)];
+        int offset = (int) position;
+
+        int keyLength = readLength(arena, offset);
+        offset += lengthSize(keyLength);
+
+        int valueLength = readLength(arena, offset);
+        offset += lengthSize(valueLength);
+
+        return new String(arena, offset + keyLength, valueLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a record to the last arena, a new arena is started if the record doesn't fit
+     *
+     * @param key key bytes
+     * @param value value bytes
+     * @return position of the record
+     */
+    private long appendRecord(byte[] key, byte[] value) {
+        int length = lengthSize(key.length) + lengthSize(value.length) + key.length + value.length;
+
+        if (arenaCount == 0 || arenaEnd + length > arenas[arenaCount - 1].length) {
+            if (arenaCount == arenas.length) {
+                arenas = Arrays.copyOf(arenas, arenas.length * 2);
+            }
+
+            arenas[arenaCount++] = new byte[Math.max(ARENA_SIZE, length)];
+            arenaEnd = 0;
+        }
+
+        byte[] arena = arenas[arenaCount - 1];
+        long position = ((long) (arenaCount - 1) << 32) | arenaEnd;
+
+        int offset = writeLength(arena, arenaEnd, key.length);
+        offset = writeLength(arena, offset, value.length);
+
+        System.arraycopy(key, 0, arena, offset, key.length);
+        System.arraycopy(value, 0, arena, offset + key.length, value.length);
+
+        arenaEnd = offset + key.length + value.length;
+        usedBytes += length;
+
+        return position;
+    }
+
+    /**
+     * Gets the length of a record
+     *
+     * @param arena arena holding the record
+     * @param offset offset of the record
+     * @return number of bytes the record occupies
+     */
+    private static int recordLength(byte[] arena, int offset) {
+        int keyLength = readLength(arena, offset);
+        int valueLength = readLength(arena, offset + lengthSize(keyLength));
+
+        return lengthSize(keyLength) + lengthSize(valueLength) + keyLength + valueLength;
+    }
+
+    /**
+     * Writes a variable-length integer
+     *
+     * @param arena arena to write to
+     * @param offset offset to write at
+     * @param length number to write
+     * @return offset after the written bytes
+     */
+    private static int writeLength(byte[] arena, int offset, int length) {
+        while (length >= 0x80) {
+            arena[offset++] = (byte) (length | 0x80);
+            length >>>= 7;
+        }
+
+        arena[offset++] = (byte) length;
+
+        return offset;
+    }
+
+    /**
+     * Reads a variable-length integer
+     *
+     * @param arena arena to read from
+     * @param offset offset of the integer
+     * @return read number
+     */
+    private static int readLength(byte[] arena, int offset) {
+        int length = 0;
+
+        for (int shift = 0; ; shift += 7) {
+            byte b = arena[offset++];
+
+            length |= (b & 0x7F) << shift;
+
+            if (b >= 0) {
+                return length;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of bytes a variable-length integer takes
+     *
+     * @param length number
+     * @return number of bytes
+     */
+    private static int lengthSize(long length) {
+        int size = 1;
+
+        while (length >= 0x80) {
+            length >>>= 7;
+            size++;
+        }
+
+        return size;
+    }
+
+    /**
+     * Resizes the slot array. The entries are relinked using their cached hash codes,
+     * no key is read or hashed again
+     *
+     * @param newCapacity new number of slots (power of two)
+     */
+    private void resize(int newCapacity) {
+        capacity = newCapacity;
+        mask = newCapacity - 1;
+
+        slots = new int[newCapacity];
+        Arrays.fill(slots, NONE);
+
+        for (int entry = 0; entry < elements; entry++) {
+            int index = hashes[entry] & mask;
+
+            next[entry] = slots[index];
+            slots[index] = entry;
+        }
+    }
+
+    /**
+     * Copies the current records into new arenas, dropping the records replaced by updates
+     */
+    private void compact() {
+        byte[][] oldArenas = arenas;
+
+        arenas = new byte[1][];
+        arenaCount = 0;
+        arenaEnd = 0;
+        usedBytes = 0;
+        garbageBytes = 0;
+
+        for (int entry = 0; entry < elements; entry++) {
+            byte[] arena = oldArenas[(int) (records[entry] >>> 32)];
+            int offset = (int) records[entry];
+            int length = recordLength(arena, offset);
+
+            if (arenaCount == 0 || arenaEnd + length > arenas[arenaCount - 1].length) {
+                if (arenaCount == arenas.length) {
+                    arenas = Arrays.copyOf(arenas, arenas.length * 2);
+                }
+
+                arenas[arenaCount++] = new byte[Math.max(ARENA_SIZE, length)];
+                arenaEnd = 0;
+            }
+
+            System.arraycopy(arena, offset, arenas[arenaCount - 1], arenaEnd, length);
+
+            records[entry] = ((long) (arenaCount - 1) << 32) | arenaEnd;
+
+            arenaEnd += length;
+            usedBytes += length;
+        }
+    }
+
+    /**
+     * Returns the number of elements in the hash table
+     *
+     * @return
+     */
+    @Override
+    public int elementCount() {
+        return elements;
+    }
+
+    /**
+     * Returns the number of chains in the hash table
+     *
+     * @return
+     */
+    @Override
+    public int chainCount() {
+        int chains = 0;
+
+        for (int entry: slots) {
+            if (entry != NONE) {
+                chains++;
+            }
+        }
+
+        return chains;
+    }
+
+    /**
+     * Returns the hash function value for the given key
+     *
+     * @param key key to hash
+     * @return hash function value
+     */
+    @Override
+    public int hash(String key) {
+        return hashFunction.hash(key) & mask;
+    }
+
+    /**
+     * Estimates the memory used by the table's arrays and arenas
+     *
+     * @return number of bytes
+     */
+    public long memoryUsage() {
+        long bytes = 4L * slots.length + 16L * next.length + 8L * arenas.length;
+
+        for (int i = 0; i < arenaCount; i++) {
+            bytes += arenas[i].length;
+        }
+
+        return bytes;
+    }
+
+    // GETTERS
+    public int getCapacity() { return capacity; }
+    public long getUsedBytes() { return usedBytes; }
+    public long getGarbageBytes() { return garbageBytes; }
+    public HashFunction getHashFunction() { return hashFunction; }
+}
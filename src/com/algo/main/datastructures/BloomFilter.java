@@ -0,0 +1,201 @@
+package com.algo.main.datastructures;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Probabilistic set of strings. It can tell that a string was never added without any false negatives,
+ * but it can answer that a string might be in the set when it's not (with the configured probability
+ * as long as no more than the expected number of strings are added). Strings can't be removed
+ */
+@SuppressWarnings("unused")
+public class BloomFilter {
+
+    // file format identification
+    private static final int MAGIC = 0x424C4D31; // "BLM1"
+
+    // bits of the filter
+    private long[] bits;
+
+    // number of bits in the filter
+    private long bitCount;
+
+    // how many bits are set for every string
+    private int hashCount;
+
+    // number of strings the filter was sized for
+    private int expectedElements;
+
+    // probability of a false positive when the filter has the expected number of strings
+    private double falsePositiveRate;
+
+    /**
+     * Class constructor
+     *
+     * @param expectedElements number of strings the filter is sized for
+     * @param falsePositiveRate probability of a false positive when the filter has the expected number of strings
+     */
+    public BloomFilter(int expectedElements, double falsePositiveRate) {
+        if (expectedElements < 1) {
+            throw new IllegalArgumentException("Expected number of elements must be at least 1");
+        }
+
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+
+        this.expectedElements = expectedElements;
+        this.falsePositiveRate = falsePositiveRate;
+
+        // optimal number of bits and hash functions for the given size and false positive rate
+        double ln2 = Math.log(2);
+
+        bitCount = Math.max(64, (long) Math.ceil(-expectedElements * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedElements * ln2));
+
+        bits = new long[(int) ((bitCount + 63) / 64)];
+    }
+
+    /**
+     * Adds a string to the filter
+     *
+     * @param element string to add
+     */
+    public void add(String element) {
+        long hash = hash64(element);
+
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+
+        // bit positions are derived from two hashes (double hashing) instead of computing k hashes
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((first + (long) i * second) & Long.MAX_VALUE) % bitCount;
+
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Checks if a string might be in the filter
+     *
+     * @param element string to check
+     * @return false if the string was never added, true if it might have been added
+     */
+    public boolean mightContain(String element) {
+        long hash = hash64(element);
+
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((first + (long) i * second) & Long.MAX_VALUE) % bitCount;
+
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes all strings from the filter
+     */
+    public void clear() {
+        Arrays.fill(bits, 0);
+    }
+
+    /**
+     * Computes a 64-bit hash of a string (FNV-1a over the characters with a final mix,
+     * independent of String.hashCode which is used by the hash tables)
+     *
+     * @param element string to hash
+     * @return hash
+     */
+    private static long hash64(String element) {
+        long hash = 0xCBF29CE484222325L;
+
+        for (int i = 0; i < element.length(); i++) {
+            hash ^= element.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+
+    /**
+     * Writes the filter to a file
+     *
+     * @param fileName file to write to (replaced if it exists)
+     */
+    public void write(String fileName) {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+            ByteBuffer buffer = ByteBuffer.allocate(32 + bits.length * 8);
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(expectedElements);
+            buffer.putDouble(falsePositiveRate);
+            buffer.putLong(bitCount);
+            buffer.putInt(hashCount);
+            buffer.putInt(bits.length);
+            buffer.asLongBuffer().put(bits);
+
+            file.setLength(buffer.capacity());
+            file.write(buffer.array());
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads a filter from a file
+     *
+     * @param fileName file written by write()
+     * @return filter, null if the file doesn't exist or can't be read
+     */
+    public static BloomFilter read(String fileName) {
+        if (!new File(fileName).exists()) {
+            return null;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            byte[] bytes = new byte[(int) file.length()];
+            file.readFully(bytes);
+
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+            if (bytes.length < 32 || buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException(fileName + " is not a Bloom filter file");
+            }
+
+            BloomFilter filter = new BloomFilter(buffer.getInt(), buffer.getDouble());
+
+            filter.bitCount = buffer.getLong();
+            filter.hashCount = buffer.getInt();
+            filter.bits = new long[buffer.getInt()];
+
+            buffer.asLongBuffer().get(filter.bits);
+
+            return filter;
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+
+        return null;
+    }
+
+    // GETTERS
+    public long getBitCount() { return bitCount; }
+    public int getHashCount() { return hashCount; }
+    public int getExpectedElements() { return expectedElements; }
+    public double getFalsePositiveRate() { return falsePositiveRate; }
+}
@@ -0,0 +1,406 @@
+package com.algo.main.datastructures;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hash table with it's elements stored in RAM that can be used from many threads at once.
+ * Uses chaining as collision resolution strategy.
+ *
+ * Reads don't lock anything: slots are read with volatile semantics and chain nodes never change
+ * their key or next node once they are published. Writes lock one of a fixed number of stripes
+ * (a stripe covers every slot with the same index modulo the number of stripes).
+ *
+ * Resizing is incremental: the slots of the full array are moved into a twice larger array in chunks,
+ * and every write made during a resize moves one chunk, so no write waits for the whole table to be copied.
+ * A moved slot is replaced by a forwarding node, which sends reads and writes of that slot to the new array.
+ * Moving a slot only locks that slot's stripe, and the new array is published once every slot is moved
+ */
+@SuppressWarnings("unused")
+public class ConcurrentHashTable implements DataHashTable {
+
+    // how much of the hash table needs to be filled in order for it to expand
+    private static final double loadFactor = 0.75;
+
+    // number of write locks (power of two)
+    private static final int stripeCount = 64;
+
+    // number of slots moved to the new array at once during a resize
+    private static final int transferChunk = 64;
+
+    // inner hash table, replaced as a whole when resizing
+    private volatile AtomicReferenceArray<Node> nodes;
+
+    // write locks
+    private final Object[] stripes = new Object[stripeCount];
+
+    // how many elements are in the table
+    private final AtomicInteger elements = new AtomicInteger();
+
+    // resize in progress, null if the table is not being resized
+    private final AtomicReference<Transfer> transfer = new AtomicReference<>();
+
+    /**
+     * Class constructor
+     * @param capacity how many slots does the hash table have initially (rounded up to a power of two)
+     */
+    public ConcurrentHashTable(int capacity) {
+        int size = 2;
+
+        while (size < capacity && size < (1 << 30)) {
+            size <<= 1;
+        }
+
+        nodes = new AtomicReferenceArray<>(size);
+
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Inserts a new element or updates the existing one
+     *
+     * @param key   key of the element
+     * @param value value of the element
+     *
+     * @return put value
+     */
+    @Override
+    public String put(String key, String value) {
+        int hash = spread(key.hashCode());
+
+        AtomicReferenceArray<Node> table = nodes;
+
+        while (true) {
+            int index = hash & (table.length() - 1);
+            boolean added = true;
+
+            synchronized (stripes[index & (stripeCount - 1)]) {
+                Node head = table.get(index);
+
+                // the slot was moved to the new array, the write goes there
+                if (head instanceof ForwardingNode) {
+                    table = ((ForwardingNode) head).target;
+                    continue;
+                }
+
+                for (Node node = head; node != null; node = node.next) {
+                    if (node.hash == hash && node.key.equals(key)) {
+                        node.value = value;
+                        added = false;
+                        break;
+                    }
+                }
+
+                if (added) {
+                    // new nodes are added to the front of the chain, so published nodes never change
+                    table.set(index, new Node(head, hash, key, value));
+                }
+            }
+
+            int count = added ? elements.incrementAndGet() : elements.get();
+
+            // every write made during a resize moves a chunk of slots
+            Transfer current = transfer.get();
+
+            if (current != null) {
+                current.moveChunk();
+            } else if (added && count > table.length() * loadFactor) {
+                resize(table);
+            }
+
+            return value;
+        }
+    }
+
+    /**
+     * Starts resizing the hash table (doubling the number of slots) and moves the first chunk of slots
+     *
+     * @param table slot array that was full, nothing is done if it was already replaced
+     */
+    private void resize(AtomicReferenceArray<Node> table) {
+        if (table != nodes || table.length() >= (1 << 30)) {
+            return;
+        }
+
+        Transfer started = new Transfer(table);
+
+        // another resize has already started
+        if (!transfer.compareAndSet(null, started)) {
+            return;
+        }
+
+        // a resize of the same array could have finished before this one was registered
+        if (table != nodes) {
+            transfer.compareAndSet(started, null);
+            return;
+        }
+
+        started.open();
+        started.moveChunk();
+    }
+
+    /**
+     * Finishes the resize in progress (if there is one)
+     */
+    private void finishResize() {
+        Transfer current = transfer.get();
+
+        while (current != null) {
+            if (!current.moveChunk()) {
+                Thread.yield();
+            }
+
+            current = transfer.get();
+        }
+    }
+
+    /**
+     * Gets an element from the hash table
+     *
+     * @param key key value of the element
+     * @return value of the element with the specified key, null if the key doesn't exist
+     */
+    @Override
+    public String get(String key) {
+        int hash = spread(key.hashCode());
+
+        AtomicReferenceArray<Node> table = nodes;
+        Node head = table.get(hash & (table.length() - 1));
+
+        // a moved slot is read from the new array
+        while (head instanceof ForwardingNode) {
+            table = ((ForwardingNode) head).target;
+            head = table.get(hash & (table.length() - 1));
+        }
+
+        for (Node node = head; node != null; node = node.next) {
+            if (node.hash == hash && node.key.equals(key)) {
+                return node.value;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Inserts new elements or updates the existing ones. Other threads can see
+     * the elements of the batch before the whole batch is inserted
+     *
+     * @param keys keys of the elements
+     * @param values values of the elements (values[i] is the value of keys[i])
+     */
+    @Override
+    public void putAll(String[] keys, String[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("There must be a value for every key");
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            put(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * Gets many elements from the hash table at once
+     *
+     * @param keys key values of the elements
+     * @return values of the elements in the same order as the keys, null for the keys that don't exist
+     */
+    @Override
+    public String[] getAll(String[] keys) {
+        String[] values = new String[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = get(keys[i]);
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns the number of elements in the hash table
+     *
+     * @return
+     */
+    @Override
+    public int elementCount() {
+        return elements.get();
+    }
+
+    /**
+     * Returns the number of chains in the hash table
+     *
+     * @return
+     */
+    @Override
+    public int chainCount() {
+        // forwarding nodes are not chains, so the slots are counted after the resize
+        finishResize();
+
+        AtomicReferenceArray<Node> table = nodes;
+
+        int chains = 0;
+
+        for (int i = 0; i < table.length(); i++) {
+            if (table.get(i) != null) {
+                chains++;
+            }
+        }
+
+        return chains;
+    }
+
+    /**
+     * Returns the hash function value for the given key
+     *
+     * @param key key to hash
+     * @return hash function value
+     */
+    @Override
+    public int hash(String key) {
+        finishResize();
+
+        return spread(key.hashCode()) & (nodes.length() - 1);
+    }
+
+    /**
+     * Mixes the high bits of a hash code into the low bits, which are used as the slot index
+     *
+     * @param code hash code
+     * @return mixed hash
+     */
+    private static int spread(int code) {
+        return code ^ (code >>> 16);
+    }
+
+    /**
+     * Node of the inner hash table's chain
+     */
+    private static class Node {
+
+        private final Node next;
+        private final int hash;
+        private final String key;
+        private volatile String value;
+
+        private Node(Node next, int hash, String key, String value) {
+            this.next = next;
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Node left in a slot that was moved to the new array during a resize
+     */
+    private static class ForwardingNode extends Node {
+
+        private final AtomicReferenceArray<Node> target;
+
+        private ForwardingNode(AtomicReferenceArray<Node> target) {
+            super(null, 0, null, null);
+
+            this.target = target;
+        }
+    }
+
+    /**
+     * Resize of the table: moves the slots of the full array into a twice larger one, chunk by chunk.
+     * Chunks are claimed by the threads that help with the resize, so every slot is moved once
+     */
+    private class Transfer {
+
+        private final AtomicReferenceArray<Node> source;
+        private final AtomicReferenceArray<Node> target;
+
+        // forwarding node put into every moved slot
+        private final ForwardingNode forwarding;
+
+        private final int chunkCount;
+
+        // next chunk to move and number of moved chunks
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final AtomicInteger movedChunks = new AtomicInteger();
+
+        // whether the resize was registered for the current array (other threads don't help before that)
+        private volatile boolean open;
+
+        private Transfer(AtomicReferenceArray<Node> source) {
+            this.source = source;
+            this.target = new AtomicReferenceArray<>(source.length() * 2);
+            this.forwarding = new ForwardingNode(target);
+            this.chunkCount = (source.length() + transferChunk - 1) / transferChunk;
+        }
+
+        /**
+         * Lets other threads help with the resize
+         */
+        private void open() {
+            open = true;
+        }
+
+        /**
+         * Moves the next chunk of slots, the new array is published after the last chunk is moved
+         *
+         * @return true if a chunk was moved, false if every chunk is already claimed
+         */
+        private boolean moveChunk() {
+            if (!open) {
+                return false;
+            }
+
+            int chunk = nextChunk.getAndIncrement();
+
+            if (chunk >= chunkCount) {
+                return false;
+            }
+
+            int end = Math.min(source.length(), (chunk + 1) * transferChunk);
+
+            for (int i = chunk * transferChunk; i < end; i++) {
+                moveSlot(i);
+            }
+
+            if (movedChunks.incrementAndGet() == chunkCount) {
+                nodes = target;
+                transfer.compareAndSet(this, null);
+            }
+
+            return true;
+        }
+
+        /**
+         * Moves a slot into the new array. The chain is split into the two slots of the new array
+         * it's keys belong to, then the slot is replaced by a forwarding node
+         *
+         * @param index slot to move
+         */
+        private void moveSlot(int index) {
+            int length = source.length();
+
+            synchronized (stripes[index & (stripeCount - 1)]) {
+                Node low = null;
+                Node high = null;
+
+                // nodes are copied, the old chain stays untouched for readers that are still in it
+                for (Node node = source.get(index); node != null; node = node.next) {
+                    if ((node.hash & length) == 0) {
+                        low = new Node(low, node.hash, node.key, node.value);
+                    } else {
+                        high = new Node(high, node.hash, node.key, node.value);
+                    }
+                }
+
+                // nothing is written to these slots of the new array until this slot is forwarded
+                target.set(index, low);
+                target.set(index + length, high);
+
+                source.set(index, forwarding);
+            }
+        }
+    }
+}
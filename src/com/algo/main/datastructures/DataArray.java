@@ -1,7 +1,7 @@
 package com.algo.main.datastructures;
 
 /**
- * Array interface
+ * Array interface (elements are indexed with 64-bit indexes)
  */
 public interface DataArray {
 
@@ -10,7 +10,7 @@ public interface DataArray {
      * @param index index of the element
      * @return element at the specified index
      */
-    double get(int index);
+    double get(long index);
 
     /**
      * Inserts a value into the specified index
@@ -18,24 +18,54 @@ public interface DataArray {
      * @param index index to put to
      * @param value new value
      */
-    void set(int index, double value);
+    void set(long index, double value);
 
     /**
      * Sets array length
      * @param length
      */
-    void setLength(int length);
+    void setLength(long length);
 
     /**
      * Swaps two elements
      * @param a index of the first element
      * @param b index of the second element
      */
-    void swap(int a, int b);
+    void swap(long a, long b);
 
     /**
      * Gets the number of elements in the array
      * @return length of the array
      */
-    int length();
+    long length();
+
+    /**
+     * Reads a range of elements into a buffer
+     *
+     * @param from index of the first element to read
+     * @param buffer buffer to read into
+     * @param offset starting position in the buffer
+     * @param length number of elements to read
+     */
+    void read(long from, double[] buffer, int offset, int length);
+
+    /**
+     * Writes elements from a buffer into a range of the array
+     *
+     * @param from index of the first element to write
+     * @param buffer buffer with the new values
+     * @param offset starting position in the buffer
+     * @param length number of elements to write
+     */
+    void write(long from, double[] buffer, int offset, int length);
+
+    /**
+     * Copies a range of elements into another array
+     *
+     * @param from index of the first element to copy
+     * @param target array to copy into (can be this array)
+     * @param to index of the first element in the target array
+     * @param length number of elements to copy
+     */
+    void copy(long from, DataArray target, long to, long length);
 }
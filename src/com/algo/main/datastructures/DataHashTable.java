@@ -22,6 +22,21 @@ public interface DataHashTable {
      */
     String get(String key);
 
+    /**
+     * Inserts new elements or updates the existing ones
+     *
+     * @param keys keys of the elements
+     * @param values values of the elements (values[i] is the value of keys[i])
+     */
+    void putAll(String[] keys, String[] values);
+
+    /**
+     * Gets many elements from the hash table at once
+     * @param keys key values of the elements
+     * @return values of the elements in the same order as the keys, null for the keys that don't exist
+     */
+    String[] getAll(String[] keys);
+
     /**
      * Returns the number of elements in the hash table
      * @return
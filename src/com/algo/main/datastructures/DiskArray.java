@@ -5,29 +5,65 @@ import com.algo.main.Utils;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Random;
 
 /**
- * Array that stores it's elements in a file
+ * Array that stores it's elements in a file. Elements are accessed through a page cache,
+ * so neighbouring accesses don't go to the file every time
  */
 @SuppressWarnings("unused")
 public class DiskArray implements DataArray, Printable {
 
+    // default page cache settings
+    private static final int DEFAULT_PAGE_SIZE = 16 * 1024;
+    private static final long DEFAULT_CACHE_SIZE = 8 * 1024 * 1024;
+
+    // number of bytes a single element occupies
+    private static final int ELEMENT_LENGTH = 8;
+
+    // maximum number of elements moved by a single file read/write of a bulk operation
+    private static final int TRANSFER_LENGTH = 128 * 1024;
+
     // file to read and write data
     private RandomAccessFile data;
 
+    // cached pages of the data file
+    private PageCache cache;
+
     // number of elements in the array
-    private int length;
+    private long length;
+
+    // reusable buffers for bulk operations
+    private ByteBuffer transferBytes;
+    private double[] copyBuffer;
 
     /**
      * Class constructor
      * @param fileName data file
      */
     public DiskArray(String fileName) {
+        this(fileName, DEFAULT_PAGE_SIZE, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param fileName data file
+     * @param pageSize number of bytes in a single cached page (must be a multiple of 8)
+     * @param cacheSize maximum number of bytes the page cache can occupy
+     */
+    public DiskArray(String fileName, int pageSize, long cacheSize) {
+        if (pageSize <= 0 || pageSize % ELEMENT_LENGTH != 0) {
+            throw new IllegalArgumentException("Page size must be a positive multiple of " + ELEMENT_LENGTH);
+        }
+
         try {
             Utils.createFile(fileName);
 
             data = new RandomAccessFile(fileName, "rw"); // rw: read write
+
+            cache = new PageCache(data.getChannel(), pageSize, cacheSize);
         } catch (IOException ex) {
             ex.printStackTrace();
         }
@@ -39,7 +75,7 @@ public class DiskArray implements DataArray, Printable {
      * @param length
      */
     @Override
-    public void setLength(int length) {
+    public void setLength(long length) {
         this.length = length;
     }
 
@@ -49,43 +85,53 @@ public class DiskArray implements DataArray, Printable {
      * @param seed seed used when generating data
      * @param length number of elements
      */
-    public void generateData(int seed, int length) {
+    public void generateData(int seed, long length) {
         this.length = length;
 
-        try {
-            Random random = new Random(seed);
+        Random random = new Random(seed);
 
-            for (int i = 0; i < length; i++) {
-                double element = random.nextDouble() * (1 + random.nextInt(1000));
+        for (long i = 0; i < length; i++) {
+            double element = random.nextDouble() * (1 + random.nextInt(1000));
 
-                data.writeDouble(element);
-            }
-        } catch(IOException ex) {
-            ex.printStackTrace();
+            writeElement(i, element);
         }
     }
 
     /**
-     * Gets the element at the specified position
+     * Reads an element through the page cache
      *
      * @param index index of the element
      * @return element at the specified index
      */
-    @Override
-    public double get(int index) {
-        int offset = index * 8;
+    private double readElement(long index) {
+        long offset = index * ELEMENT_LENGTH;
+        int pageSize = cache.getPageSize();
 
-        double element = 0;
+        return cache.readPage(offset / pageSize).getDouble((int) (offset % pageSize));
+    }
 
-        try {
-            data.seek(offset);
+    /**
+     * Writes an element through the page cache
+     *
+     * @param index index of the element
+     * @param value new value
+     */
+    private void writeElement(long index, double value) {
+        long offset = index * ELEMENT_LENGTH;
+        int pageSize = cache.getPageSize();
 
-            element = data.readDouble();
-        } catch (IOException ex) {
-            ex.printStackTrace();
-        }
+        cache.writePage(offset / pageSize).putDouble((int) (offset % pageSize), value);
+    }
 
-        return element;
+    /**
+     * Gets the element at the specified position
+     *
+     * @param index index of the element
+     * @return element at the specified index
+     */
+    @Override
+    public double get(long index) {
+        return readElement(index);
     }
 
     /**
@@ -95,18 +141,12 @@ public class DiskArray implements DataArray, Printable {
      * @param value new value
      */
     @Override
-    public void set(int index, double value) {
+    public void set(long index, double value) {
         if (index < 0 || index >= length) {
             throw new IllegalArgumentException("DataArray index out of bounds");
         }
 
-        try {
-            data.seek(index * 8);
-
-            data.write(ByteBuffer.wrap(new byte[8]).putDouble(value).array(), 0, 8);
-        } catch (IOException ex) {
-            ex.printStackTrace();
-        }
+        writeElement(index, value);
     }
 
     /**
@@ -115,7 +155,7 @@ public class DiskArray implements DataArray, Printable {
      * @return length of the array
      */
     @Override
-    public int length() {
+    public long length() {
         return length;
     }
 
@@ -126,45 +166,181 @@ public class DiskArray implements DataArray, Printable {
      * @param b index of the second element
      */
     @Override
-    public void swap(int a, int b) {
-        int offsetA = a * 8;
-        int offsetB = b * 8;
+    public void swap(long a, long b) {
+        double valueA = readElement(a);
+        double valueB = readElement(b);
+
+        writeElement(a, valueB);
+        writeElement(b, valueA);
+    }
+
+    /**
+     * Reads a range of elements into a buffer (one file read per range)
+     *
+     * @param from index of the first element to read
+     * @param buffer buffer to read into
+     * @param offset starting position in the buffer
+     * @param length number of elements to read
+     */
+    @Override
+    public void read(long from, double[] buffer, int offset, int length) {
+        checkRange(from, length);
+
+        if (length == 0) {
+            return;
+        }
+
+        long position = from * ELEMENT_LENGTH;
+        int pageSize = cache.getPageSize();
+
+        // the file may be older than the cached pages, write the modified pages of the range first
+        cache.flush(position / pageSize, (position + (long) length * ELEMENT_LENGTH - 1) / pageSize);
 
         try {
-            data.seek(offsetA);
-            double valueA = data.readDouble();
+            FileChannel channel = data.getChannel();
 
-            data.seek(offsetB);
-            double valueB = data.readDouble();
+            while (length > 0) {
+                int count = Math.min(length, TRANSFER_LENGTH);
 
-            data.seek(offsetA);
-            data.write(ByteBuffer.wrap(new byte[8]).putDouble(valueB).array(),
-                    0, 8);
+                ByteBuffer bytes = transferBuffer(count);
 
-            data.seek(offsetB);
-            data.write(ByteBuffer.wrap(new byte[8]).putDouble(valueA).array(),
-                    0, 8);
+                while (bytes.hasRemaining()) {
+                    if (channel.read(bytes, position + bytes.position()) < 0) {
+                        break; // elements that were never written are past the end of the file
+                    }
+                }
+
+                while (bytes.hasRemaining()) {
+                    bytes.put((byte) 0);
+                }
+
+                bytes.flip();
+                bytes.asDoubleBuffer().get(buffer, offset, count);
+
+                position += (long) count * ELEMENT_LENGTH;
+                offset += count;
+                length -= count;
+            }
         } catch (IOException ex) {
             ex.printStackTrace();
         }
     }
 
     /**
-     * Prints the whole data structure
+     * Writes elements from a buffer into a range of the array (one file write per range)
+     *
+     * @param from index of the first element to write
+     * @param buffer buffer with the new values
+     * @param offset starting position in the buffer
+     * @param length number of elements to write
      */
     @Override
-    public void print() {
+    public void write(long from, double[] buffer, int offset, int length) {
+        checkRange(from, length);
+
+        if (length == 0) {
+            return;
+        }
+
+        long position = from * ELEMENT_LENGTH;
+        int pageSize = cache.getPageSize();
+
+        // cached pages of the range would be stale after the write
+        cache.invalidate(position / pageSize, (position + (long) length * ELEMENT_LENGTH - 1) / pageSize);
+
         try {
-            data.seek(0);
+            FileChannel channel = data.getChannel();
+
+            while (length > 0) {
+                int count = Math.min(length, TRANSFER_LENGTH);
+
+                ByteBuffer bytes = transferBuffer(count);
+                bytes.asDoubleBuffer().put(buffer, offset, count);
+
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes, position + bytes.position());
+                }
 
-            for (int i = 0; i < length; i++) {
-                System.out.printf("%.3f\n", data.readDouble());
+                position += (long) count * ELEMENT_LENGTH;
+                offset += count;
+                length -= count;
             }
         } catch (IOException ex) {
             ex.printStackTrace();
         }
     }
 
+    /**
+     * Copies a range of elements into another array
+     *
+     * @param from index of the first element to copy
+     * @param target array to copy into (can be this array)
+     * @param to index of the first element in the target array
+     * @param length number of elements to copy
+     */
+    @Override
+    public void copy(long from, DataArray target, long to, long length) {
+        checkRange(from, length);
+
+        if (copyBuffer == null || copyBuffer.length < Math.min(length, TRANSFER_LENGTH)) {
+            copyBuffer = new double[(int) Math.min(length, TRANSFER_LENGTH)];
+        }
+
+        // copy overlapping ranges of the same array from the end, so elements aren't overwritten before they're copied
+        boolean backwards = target == this && to > from && to < from + length;
+
+        long copied = 0;
+
+        while (copied < length) {
+            int count = (int) Math.min(length - copied, copyBuffer.length);
+            long start = backwards ? length - copied - count : copied;
+
+            read(from + start, copyBuffer, 0, count);
+            target.write(to + start, copyBuffer, 0, count);
+
+            copied += count;
+        }
+    }
+
+    /**
+     * Gets the reusable transfer buffer prepared for the given number of elements
+     *
+     * @param count number of elements
+     * @return byte buffer with the limit set to the size of the elements
+     */
+    private ByteBuffer transferBuffer(int count) {
+        if (transferBytes == null || transferBytes.capacity() < count * ELEMENT_LENGTH) {
+            transferBytes = ByteBuffer.allocate(count * ELEMENT_LENGTH);
+        }
+
+        transferBytes.clear();
+        transferBytes.limit(count * ELEMENT_LENGTH);
+
+        return transferBytes;
+    }
+
+    /**
+     * Checks if a range of elements is inside the array
+     *
+     * @param from index of the first element
+     * @param length number of elements
+     */
+    private void checkRange(long from, long length) {
+        if (from < 0 || length < 0 || from + length > this.length) {
+            throw new IllegalArgumentException("DataArray index out of bounds");
+        }
+    }
+
+    /**
+     * Prints the whole data structure
+     */
+    @Override
+    public void print() {
+        for (long i = 0; i < length; i++) {
+            System.out.printf("%.3f\n", readElement(i));
+        }
+    }
+
     /**
      * Prints a portion of the data structure
      *
@@ -172,27 +348,39 @@ public class DiskArray implements DataArray, Printable {
      * @param length how many elements to print
      */
     @Override
-    public void print(int from, int length) {
+    public void print(long from, long length) {
         if (from < 0 || from + length > this.length || length <= 0) {
             throw new IllegalArgumentException("Invalid starting index and/or length");
         }
 
-        try {
-            data.seek(from * 8);
-
-            for (int i = from; i < from + length; i++) {
-                System.out.printf("%.3f\n", data.readDouble());
-            }
-        } catch (IOException ex) {
-            ex.printStackTrace();
+        for (long i = from; i < from + length; i++) {
+            System.out.printf("%.3f\n", readElement(i));
         }
     }
 
     /**
-     * Closes the data file
+     * Writes all modified pages to the data file
+     */
+    public void flush() {
+        cache.flush();
+    }
+
+    /**
+     * Gets the page cache of the array (used to read hit/miss statistics)
+     *
+     * @return page cache
+     */
+    public PageCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Writes modified pages back and closes the data file
      */
     public void close() {
         try {
+            cache.flush();
+
             data.close();
         } catch (IOException ex) {
             ex.printStackTrace();
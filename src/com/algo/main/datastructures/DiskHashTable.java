@@ -5,13 +5,53 @@ import com.algo.main.Utils;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
- * Hash table with it's elements stored in a file. Uses chaining as collision resolution strategy.
- * Note that you can't insert longer values than the longest old one when updating an element
- * (inserting longer values would require
- * a lot of data copying and would be very inefficient)
+ * Hash table with it's elements stored in a file. Every slot (bucket) is a fixed-size page holding
+ * many elements, when a bucket's page is full an overflow page is linked to it. A lookup usually reads
+ * a single page, and pages are accessed through a page cache.
+ *
+ * A value that grows is moved to a new record. Removed and moved records leave tombstones and holes
+ * in their page, which are reused when the page is compacted before an insert. Pages left empty are
+ * reused by other buckets, and compact() rewrites the whole file densely in bucket order
+ *
+ * A value too long for it's record to fit into a page is stored in a chain of overflow pages, and the record
+ * only holds a reference to the chain, so values of any length are supported. A key must fit into a page
+ * (up to about 4 KB of UTF-8)
+ *
+ * The slot directory (first page of every bucket) is kept in memory and written to a separate directory file
+ * on flush and close
+ *
+ * The table grows using linear hashing: when it gets too full, only the bucket at the split pointer
+ * is split into two, so a single insert never rewrites the whole table
+ *
+ * The first page of the file is a versioned header with the table's size and statistics,
+ * so a flushed or closed table can be opened again without rebuilding it
+ *
+ * compact() builds the new data and directory files next to the old ones and swaps them in with atomic
+ * renames. Renaming the data file commits the compaction, a directory file left by a crash after it is moved
+ * in place when the table is opened again, temporary files left by a crash before it are deleted
+ *
+ * An optional Bloom filter of the keys answers most lookups of absent keys without reading any pages.
+ * It's stored in a separate file next to the table
+ *
+ * With a durability mode other than NONE every put and remove is appended to a write-ahead log before
+ * it changes any page, and modified pages stay in the page cache (no-steal) until a checkpoint.
+ * A checkpoint logs images of the modified pages and the directory, writes them to the files and empties
+ * the log, so a crash in the middle of a checkpoint is repaired from the page images. Operations logged
+ * after the last checkpoint are replayed when the table is opened again
  */
 @SuppressWarnings("unused")
 public class DiskHashTable implements DataHashTable {
@@ -19,31 +59,155 @@ public class DiskHashTable implements DataHashTable {
     /**
      * IMPORTANT
      *
-     * All addresses are offsets in bytes from the beginning of the file
+     * Page 0 is the file header, buckets use the other pages. Pages that are not used by any bucket
+     * are linked into a free page list through their next page field
+     *
+     * Page layout (slotted page):
+     *   int next page of the bucket (-1 if it's the last page)
+     *   short number of slots
+     *   short offset of the first record byte (records are written from the end of the page backwards)
+     *   short number of dead bytes (tombstone slots and holes left by removed records)
+     *   slot array, for every record: int hash code of the key, short record offset (0 for a tombstone)
+     *   free space
+     *   records: short key length, short value length, key bytes, value bytes (UTF-8)
+     *
+     * A record with an overflowing value has OVERFLOW as it's value length, and instead of the value
+     * it holds the int first overflow page and the int value length. Overflow page layout:
+     *   int next overflow page (-1 if it's the last page)
+     *   int number of value bytes in the page
+     *   value bytes
+     *
+     * Version 3 added overflow pages, version 2 files are read the same way
      */
 
-    // how much of the hash table needs to be filled in order for it to expand
-    private static final double loadFactor = 0.75;
+    // default part of the pages' space that needs to be used in order for the table to grow
+    private static final double DEFAULT_LOAD_FACTOR = 0.75;
+
+    // file header identification
+    private static final int MAGIC = 0x44485431; // "DHT1"
+    private static final int VERSION = 3;
+
+    // oldest file version that can be opened
+    private static final int MIN_VERSION = 2;
+
+    // offsets of the file header fields
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_PAGE_SIZE = 8;
+    private static final int HEADER_INITIAL_CAPACITY = 12;
+    private static final int HEADER_CAPACITY = 16;
+    private static final int HEADER_LEVEL = 20;
+    private static final int HEADER_SPLIT = 24;
+    private static final int HEADER_ELEMENTS = 28;
+    private static final int HEADER_CHAINS = 32;
+    private static final int HEADER_PAGE_COUNT = 36;
+    private static final int HEADER_FREE_PAGE = 40;
+    private static final int HEADER_USED_BYTES = 44;
+    private static final int HEADER_LOAD_FACTOR = 52;
+
+    // number of bytes in a single page
+    private static final int PAGE_SIZE = 4096;
+
+    // default page cache budget
+    private static final long DEFAULT_CACHE_SIZE = 8 * 1024 * 1024;
+
+    // default milliseconds between log syncs in periodic durability mode
+    private static final long DEFAULT_SYNC_INTERVAL = 100;
+
+    // log size after which a checkpoint is made
+    private static final long CHECKPOINT_LOG_SIZE = 64 * 1024 * 1024;
+
+    // page header and record layout
+    private static final int PAGE_HEADER_LENGTH = 10;
+    private static final int SLOT_LENGTH = 6;
+    private static final int RECORD_HEADER_LENGTH = 4;
+
+    // offsets of the page header fields
+    private static final int NEXT_PAGE = 0;
+    private static final int RECORD_COUNT = 4;
+    private static final int FREE_END = 6;
+    private static final int DEAD_BYTES = 8;
+
+    // record offset of a removed record's slot
+    private static final int TOMBSTONE = 0;
+
+    // value length of a record whose value is in overflow pages
+    private static final short OVERFLOW = -1;
+
+    // number of bytes a record holds instead of an overflowing value (first overflow page and value length)
+    private static final int OVERFLOW_REFERENCE_LENGTH = 8;
+
+    // offsets of the overflow page header fields (the next page is at NEXT_PAGE)
+    private static final int OVERFLOW_LENGTH = 4;
+    private static final int OVERFLOW_HEADER_LENGTH = 8;
 
-    // how many elements are in the hash table (counting all chained elements)
+    // how much of the pages' space needs to be used in order for the table to grow
+    private double loadFactor;
+
+    // how many elements are in the hash table
     private int elements;
 
-    // how many slots does the hash table have
+    // how many slots (buckets) does the hash table have
     private int capacity;
 
-    // how many chains are in the hash table
+    // number of slots the table was created with
+    private int initialCapacity;
+
+    // how many times the number of slots has doubled (initialCapacity << level slots existed at the start of the round)
+    private int level;
+
+    // next slot to split in the current round
+    private int split;
+
+    // how many buckets are not empty
     private int chains;
 
-    // file with the hash table and it's elements
+    // number of page bytes used by records and their slots
+    private long usedBytes;
+
+    // number of pages in the data file (including the header page)
+    private int pageCount;
+
+    // first page of the free page list, -1 if there are no free pages
+    private int firstFreePage = -1;
+
+    // file with the hash table's pages
     private RandomAccessFile data;
 
-    // number of bytes a single hash table slot occupies
-    // (an element is basically an integer reference to a chain)
+    // cached pages of the data file
+    private PageCache cache;
+
+    // number of bytes a single directory entry occupies
     private static final int tableElementLength = 4;
 
     // file used by the hash table
     private String fileName;
 
+    // first page of every bucket, the in-memory copy of the directory file
+    // (can be longer than the number of slots, so it doesn't need to grow on every split)
+    private int[] directory;
+
+    // whether the directory was changed since it was last written to the file
+    private boolean directoryChanged;
+
+    // filter of the keys in the table, null if it's not used
+    private BloomFilter bloomFilter;
+
+    // number of lookups answered by the Bloom filter without reading any pages
+    private long avoidedReads;
+
+    // whether the next batch operation goes through the buckets in descending page order
+    private boolean descendingBatch;
+
+    // how safely the changes are kept
+    private Durability durability = Durability.NONE;
+
+    // log of the changes since the last checkpoint, null if the durability mode is NONE
+    private WriteAheadLog log;
+
+    // number of checkpoints made
+    private long checkpoints;
+
     /**
      * Class constructor
      *
@@ -51,14 +215,55 @@ public class DiskHashTable implements DataHashTable {
      * @param capacity initial number of hash table slots
      */
     public DiskHashTable(String fileName, int capacity) {
+        this(fileName, capacity, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param fileName name of the file where elements will be stored
+     * @param capacity initial number of hash table slots
+     * @param cacheSize maximum number of bytes the page cache can occupy
+     */
+    public DiskHashTable(String fileName, int capacity, long cacheSize) {
+        this(fileName, capacity, DEFAULT_LOAD_FACTOR, cacheSize);
+    }
+
+    /**
+     * Class constructor, creates a new table (an existing file is replaced)
+     *
+     * @param fileName name of the file where elements will be stored
+     * @param capacity initial number of hash table slots
+     * @param loadFactor how much of the pages' space needs to be used in order for the table to grow
+     * @param cacheSize maximum number of bytes the page cache can occupy
+     */
+    public DiskHashTable(String fileName, int capacity, double loadFactor, long cacheSize) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+
+        if (loadFactor <= 0) {
+            throw new IllegalArgumentException("Load factor must be positive");
+        }
+
         this.capacity = capacity;
+        this.initialCapacity = capacity;
+        this.loadFactor = loadFactor;
         this.fileName = fileName;
 
         try {
             Utils.createFile(fileName);
 
+            // a filter, a log or a compaction left by an older table with the same file name doesn't match the new table
+            new File(fileName + ".bloom").delete();
+            new File(fileName + ".wal").delete();
+            new File(fileName + ".compact").delete();
+            new File(fileName + ".dir.compact").delete();
+
             data = new RandomAccessFile(fileName, "rw");
 
+            cache = new PageCache(data.getChannel(), PAGE_SIZE, cacheSize);
+
             resetChainAddresses();
         } catch (IOException ex) {
             ex.printStackTrace();
@@ -66,374 +271,1191 @@ public class DiskHashTable implements DataHashTable {
     }
 
     /**
-     * Resets chain addresses to -1 in the hash table (-1 means that a chain doesn't exist)
-     */
-    private void resetChainAddresses() {
-        for (int i = 0; i < capacity; i++) {
-            updateChainAddress(i, -1);
-        }
-    }
-
-    /**
-     * Inserts a new element or updates the existing one
+     * Class constructor, opens an existing table that was flushed or closed. If the table was
+     * using a write-ahead log, the logged changes are recovered. The opened table's durability mode is NONE.
+     * A table whose files can't be read is not opened, an UncheckedIOException is thrown instead
      *
-     * @param key   key of the element
-     * @param value value of the element
-     * @return put value
+     * @param fileName name of the file where elements are stored
      */
-    @Override
-    public String put(String key, String value) {
-        int index = hash(key);
+    public DiskHashTable(String fileName) {
+        this.fileName = fileName;
 
-        // resize the hash table if needed
-        if (elements > capacity * loadFactor) {
-            resize(capacity * 2);
-            return put(key, value);
+        if (!new File(fileName).exists()) {
+            throw new IllegalArgumentException("Hash table file " + fileName + " doesn't exist");
         }
 
-        int chainAddress = getChainAddressAtIndex(index);
-
-        if (chainAddress == -1) {
-            // the current hash table slot doesn't point to any chain, create a new one
-            chainAddress = getNewChainAddress();
-            updateChainAddress(index, chainAddress);
+        try {
+            data = new RandomAccessFile(fileName, "rw");
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Hash table file " + fileName + " can't be opened", ex);
         }
 
-        elements++;
+        cache = new PageCache(data.getChannel(), PAGE_SIZE, DEFAULT_CACHE_SIZE);
 
-        return putNodeToChain(chainAddress, key, value);
+        try {
+            finishCompaction();
+
+            List<WriteAheadLog.Record> records = WriteAheadLog.read(fileName + ".wal");
+
+            // a checkpoint interrupted after it was logged is finished before anything is read
+            int checkpointEnd = redoCheckpoint(records);
+
+            readHeader();
+            readDirectory();
+
+            bloomFilter = BloomFilter.read(fileName + ".bloom");
+
+            if (!records.isEmpty()) {
+                replay(records, checkpointEnd + 1);
+            }
+        } catch (IOException ex) {
+            closeData(ex);
+            throw new UncheckedIOException("Hash table " + fileName + " can't be read", ex);
+        } catch (RuntimeException ex) {
+            closeData(ex);
+            throw ex;
+        }
     }
 
     /**
-     * Updates chain address at the specified hash table index
+     * Closes the files of a table that failed to open
      *
-     * @param index index of the address
-     * @param chainAddress new address
+     * @param cause exception that stopped the table from opening (an error while closing is added to it)
      */
-    private void updateChainAddress(int index, int chainAddress) {
+    private void closeData(Exception cause) {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+
         try {
-            data.seek(index * 4);
-            data.write(ByteBuffer.wrap(new byte[4]).putInt(chainAddress).array(), 0, 4);
+            data.close();
         } catch (IOException ex) {
-            ex.printStackTrace();
+            cause.addSuppressed(ex);
         }
     }
 
     /**
-     * Resize the hash table
-     * @param newCapacity new number of slots in the hash table
+     * Writes the page images and the directory of the last complete checkpoint in the log to the files
+     *
+     * @param records records of the log
+     * @return index of the checkpoint's end record, -1 if the log has no complete checkpoint
+     * @throws IOException if the files can't be written
      */
-    private void resize(int newCapacity) {
-        try {
-            // using milliseconds in the file name ensures that the file name is unique every time
-            // and file conflicts are avoided
-            String tempFile = "temp_" + System.currentTimeMillis() + ".bin";
+    private int redoCheckpoint(List<WriteAheadLog.Record> records) throws IOException {
+        int end = -1;
+
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).getType() == WriteAheadLog.CHECKPOINT) {
+                end = i;
+            }
+        }
 
-            DiskHashTable table = new DiskHashTable(tempFile, newCapacity);
+        if (end == -1) {
+            return -1;
+        }
 
-            for (int i = 0; i < capacity; i++) {
-                int chainAddress = getChainAddressAtIndex(i);
+        // images of the same page in older checkpoints are overwritten by the newer ones
+        for (int i = 0; i <= end; i++) {
+            WriteAheadLog.Record record = records.get(i);
 
-                if (chainAddress != -1) {
-                    insertNodesIntoTable(chainAddress, table);
+            if (record.getType() == WriteAheadLog.PAGE) {
+                writePage(data.getChannel(), ByteBuffer.wrap(record.getSecond()), ByteBuffer.wrap(record.getFirst()).getInt());
+            } else if (record.getType() == WriteAheadLog.DIRECTORY) {
+                try (RandomAccessFile file = new RandomAccessFile(fileName + ".dir", "rw")) {
+                    file.setLength(record.getFirst().length);
+                    file.write(record.getFirst());
                 }
             }
+        }
+
+        data.getChannel().force(true);
+
+        return end;
+    }
 
-            // update stats
-            this.capacity = newCapacity;
-            this.elements = table.elementCount();
-            this.chains = table.chainCount();
+    /**
+     * Applies the logged operations that are not in the files yet and makes a checkpoint,
+     * so the recovered changes are in the files and the log is empty
+     *
+     * @param records records of the log
+     * @param from index of the first record to replay
+     */
+    private void replay(List<WriteAheadLog.Record> records, int from) {
+        // the log is reused for the checkpoint, the operations are already in it
+        log = new WriteAheadLog(fileName + ".wal", Durability.BATCH, DEFAULT_SYNC_INTERVAL);
+        cache.setNoSteal(true);
 
-            table.close();
-            this.close();
+        for (int i = from; i < records.size(); i++) {
+            WriteAheadLog.Record record = records.get(i);
 
-            // rename the new hash table's file to the file expected by the current hash table
-            File file = new File(tempFile);
-            File current = new File(fileName);
+            String key = new String(record.getFirst(), StandardCharsets.UTF_8);
 
-            if (current.exists()) {
-                current.delete();
+            // page images of a checkpoint that wasn't logged completely are skipped, the files weren't changed by it
+            if (record.getType() == WriteAheadLog.PUT) {
+                insert(key, new String(record.getSecond(), StandardCharsets.UTF_8));
+            } else if (record.getType() == WriteAheadLog.REMOVE) {
+                delete(key);
             }
+        }
 
-            file.renameTo(current);
+        // the filter might be missing the replayed keys
+        if (bloomFilter != null) {
+            rebuildBloomFilter(bloomFilter.getFalsePositiveRate());
+        }
 
-            // re-open the data file
-            data = new RandomAccessFile(fileName, "rw");
-        } catch (IOException ex) {
-            ex.printStackTrace();
+        checkpoint();
+
+        log.close();
+        log = null;
+
+        cache.setNoSteal(false);
+
+        new File(fileName + ".wal").delete();
+    }
+
+    /**
+     * Creates an empty page for every slot
+     */
+    private void resetChainAddresses() {
+        // page 0 is the header
+        pageCount = 1;
+
+        directory = new int[capacity];
+
+        for (int i = 0; i < capacity; i++) {
+            directory[i] = allocatePage();
         }
+
+        writeHeader();
+        writeDirectory();
+    }
+
+    /**
+     * Writes the table's size and statistics to the header page
+     */
+    private void writeHeader() {
+        writeHeader(cache.writePage(0), pageCount, firstFreePage, usedBytes);
     }
 
     /**
-     * Inserts all nodes from the given chain into another hash table
+     * Writes the table's size and statistics into a header page
      *
-     * @param chainAddress address of the chain in the data file
-     * @param table table to insert into
+     * @param header page to write to
+     * @param pageCount number of pages in the file
+     * @param firstFreePage first page of the free page list, -1 if there are no free pages
+     * @param usedBytes number of bytes used by live records
      */
-    private void insertNodesIntoTable(int chainAddress, DiskHashTable table) {
-        try {
-            int nextNode = chainAddress;
+    private void writeHeader(ByteBuffer header, int pageCount, int firstFreePage, long usedBytes) {
+        header.putInt(HEADER_MAGIC, MAGIC);
+        header.putInt(HEADER_VERSION, VERSION);
+        header.putInt(HEADER_PAGE_SIZE, PAGE_SIZE);
+        header.putInt(HEADER_INITIAL_CAPACITY, initialCapacity);
+        header.putInt(HEADER_CAPACITY, capacity);
+        header.putInt(HEADER_LEVEL, level);
+        header.putInt(HEADER_SPLIT, split);
+        header.putInt(HEADER_ELEMENTS, elements);
+        header.putInt(HEADER_CHAINS, chains);
+        header.putInt(HEADER_PAGE_COUNT, pageCount);
+        header.putInt(HEADER_FREE_PAGE, firstFreePage);
+        header.putLong(HEADER_USED_BYTES, usedBytes);
+        header.putDouble(HEADER_LOAD_FACTOR, loadFactor);
+    }
+
+    /**
+     * Reads the table's size and statistics from the header page
+     */
+    private void readHeader() {
+        ByteBuffer header = cache.readPage(0);
+
+        if (header.getInt(HEADER_MAGIC) != MAGIC) {
+            throw new IllegalArgumentException(fileName + " is not a hash table file");
+        }
 
-            while (nextNode != -1) {
-                data.seek(nextNode);
+        if (header.getInt(HEADER_VERSION) < MIN_VERSION || header.getInt(HEADER_VERSION) > VERSION) {
+            throw new IllegalArgumentException("Unsupported hash table file version " + header.getInt(HEADER_VERSION));
+        }
 
-                nextNode = data.readInt();
+        if (header.getInt(HEADER_PAGE_SIZE) != PAGE_SIZE) {
+            throw new IllegalArgumentException("Unsupported page size " + header.getInt(HEADER_PAGE_SIZE));
+        }
 
-                String key = data.readUTF();
-                String value = data.readUTF();
+        initialCapacity = header.getInt(HEADER_INITIAL_CAPACITY);
+        capacity = header.getInt(HEADER_CAPACITY);
+        level = header.getInt(HEADER_LEVEL);
+        split = header.getInt(HEADER_SPLIT);
+        elements = header.getInt(HEADER_ELEMENTS);
+        chains = header.getInt(HEADER_CHAINS);
+        pageCount = header.getInt(HEADER_PAGE_COUNT);
+        firstFreePage = header.getInt(HEADER_FREE_PAGE);
+        usedBytes = header.getLong(HEADER_USED_BYTES);
+        loadFactor = header.getDouble(HEADER_LOAD_FACTOR);
+    }
 
-                table.put(key, value);
+    /**
+     * Reads the directory from the directory file
+     *
+     * @throws IOException if the directory file can't be read
+     */
+    private void readDirectory() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName + ".dir", "r")) {
+            if (file.length() != (long) capacity * tableElementLength) {
+                throw new IllegalArgumentException("Directory file doesn't match the hash table file");
             }
-        } catch (IOException ex) {
-            ex.printStackTrace();
+
+            byte[] bytes = new byte[capacity * tableElementLength];
+            file.readFully(bytes);
+
+            directory = new int[capacity];
+            ByteBuffer.wrap(bytes).asIntBuffer().get(directory, 0, capacity);
         }
     }
 
     /**
-     * Gets a new chain address (basically creates an empty chain at the end of the file)
-     * @return chain address in the data file
+     * Writes the directory to the directory file with a single write
      */
-    private int getNewChainAddress() {
+    private void writeDirectory() {
         try {
-            chains++;
-            return (int) data.length();
+            // a checkpoint empties the log afterwards, so the directory must already be on the disk
+            writeDirectory(fileName + ".dir", directory, log != null);
+
+            directoryChanged = false;
         } catch (IOException ex) {
             ex.printStackTrace();
         }
-
-        return 0;
     }
 
     /**
-     * Adds a node to the chain at specified address
+     * Writes a slot directory to a file
      *
-     * @param chainAddress address of the chain in the data file
-     * @param key key of the node
-     * @param value value of the node
-     * @return inserted/updated value
+     * @param directoryFile file to write to
+     * @param directory first page of every bucket
+     * @param force whether the file is synced to the disk
+     * @throws IOException if the file can't be written
      */
-    private String putNodeToChain(int chainAddress, String key, String value) {
-        try {
-            // if the chain address is at the end of the file, that means it is an empty chain
-            // and we do not need to update any node's next node value
-            if (chainAddress == data.length()) {
-                return insertNode((int) data.length(), -1, key, value);
-            }
+    private void writeDirectory(String directoryFile, int[] directory, boolean force) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(directoryFile, "rw")) {
+            ByteBuffer buffer = ByteBuffer.allocate(capacity * tableElementLength);
+            buffer.asIntBuffer().put(directory, 0, capacity);
 
-            // if this is reached, that means it is not a newly created chain
-            // check if the given key already exists in the chain, if so, update the node
-            int existingNodeAddress = getNodeAddressIfExists(chainAddress, key);
+            file.setLength(buffer.capacity());
+            file.write(buffer.array(), 0, buffer.capacity());
 
-            if (existingNodeAddress != -1) {
-                // update the node
-                updateNodeValue(existingNodeAddress, value);
+            if (force) {
+                file.getChannel().force(true);
             }
+        }
+    }
 
-            // if this is reached that means a chain exists, no nodes were updated and we need to get the last node
-            // in the chain, set it's next value to a new node, and insert that node
-            // (new nodes are always inserted at the end of the file)
-            int newNodeAddress = (int) data.length();
+    /**
+     * Gets an empty page, reusing a free page if there is one
+     *
+     * @return page number
+     */
+    private int allocatePage() {
+        if (firstFreePage == -1) {
+            int pageNumber = pageCount++;
 
-            int lastNodeAddress = getLastChainNodeAddress(chainAddress);
+            clearPage(cache.writePage(pageNumber), -1);
 
-            data.seek(lastNodeAddress);
+            return pageNumber;
+        }
 
-            // update the last node's next value
-            data.write(ByteBuffer.wrap(new byte[4]).putInt(newNodeAddress).array(), 0, 4);
+        int pageNumber = firstFreePage;
 
-            // insert the new node
-            return insertNode(newNodeAddress, -1, key, value);
-        } catch (IOException ex) {
-            ex.printStackTrace();
-        }
+        ByteBuffer page = cache.writePage(pageNumber);
 
-        return null;
+        firstFreePage = page.getInt(NEXT_PAGE);
+        clearPage(page, -1);
+
+        return pageNumber;
     }
 
     /**
-     * Inserts a new node at the specified address
+     * Adds a page that is no longer used by any bucket to the free page list
      *
-     * @param address
-     * @param next address of the next node
-     * @param key key of the node
-     * @param value value of the node
-     * @return inserted value, null if failed to insert node
+     * @param pageNumber page to free
      */
-    private String insertNode(int address, int next, String key, String value) {
-        try {
-            data.seek(address);
+    private void releasePage(int pageNumber) {
+        clearPage(cache.writePage(pageNumber), firstFreePage);
 
-            data.writeInt(next);
-            data.writeUTF(key);
-            data.writeUTF(value);
+        firstFreePage = pageNumber;
+    }
 
-            return value;
-        } catch (IOException ex) {
-            ex.printStackTrace();
+    /**
+     * Removes all records from a page
+     *
+     * @param page page data
+     * @param nextPage next page of the bucket
+     */
+    private static void clearPage(ByteBuffer page, int nextPage) {
+        page.putInt(NEXT_PAGE, nextPage);
+        page.putShort(RECORD_COUNT, (short) 0);
+        page.putShort(FREE_END, (short) PAGE_SIZE);
+        page.putShort(DEAD_BYTES, (short) 0);
+    }
+
+    /**
+     * Inserts a new element or updates the existing one
+     *
+     * @param key   key of the element
+     * @param value value of the element
+     * @return put value
+     */
+    @Override
+    public String put(String key, String value) {
+        if (log == null) {
+            return insert(key, value);
         }
 
-        return null;
+        // the modified pages can't be written before the log is synced, so the operation is logged after it's done
+        insert(key, value);
+
+        log.append(WriteAheadLog.PUT, key.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8));
+
+        operationDone();
+
+        return value;
     }
 
     /**
-     * Updates existing node's value
+     * Inserts a new element or updates the existing one without logging it
      *
-     * @param address address of the node
-     * @param newValue value to insert
-     * @return inserted value, null if failed to update
+     * @param key   key of the element
+     * @param value value of the element
+     * @return put value
      */
-    private String updateNodeValue(int address, String newValue) {
-        try {
-            data.seek(address);
-            data.readInt();
-            data.readUTF();
+    private String insert(String key, String value) {
+        int hash = key.hashCode();
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
 
-            String existingValue = data.readUTF();
+        int recordLength = RECORD_HEADER_LENGTH + keyBytes.length + valueBytes.length;
 
-            if (existingValue.getBytes().length < newValue.getBytes().length) {
-                throw new RuntimeException("Trying to insert a longer value than the existing one");
+        // a value that doesn't fit into a page with it's key is moved to overflow pages
+        boolean overflow = SLOT_LENGTH + recordLength > PAGE_SIZE - PAGE_HEADER_LENGTH;
+
+        if (overflow) {
+            recordLength = RECORD_HEADER_LENGTH + keyBytes.length + OVERFLOW_REFERENCE_LENGTH;
+
+            if (SLOT_LENGTH + recordLength > PAGE_SIZE - PAGE_HEADER_LENGTH) {
+                throw new IllegalArgumentException("Key doesn't fit into a page");
             }
+        }
 
-            data.seek(address);
+        int index = address(hash);
 
-            data.writeUTF(newValue);
+        // first page of the bucket with enough free space for the record
+        int targetPage = -1;
+        int lastPage = -1;
 
-            return newValue;
-        } catch (IOException ex) {
-            ex.printStackTrace();
+        for (int pageNumber = directory[index]; pageNumber != -1; ) {
+            ByteBuffer page = cache.readPage(pageNumber);
+
+            int slot = findSlot(page, hash, keyBytes);
+
+            // update the record if the key already exists
+            if (slot != -1) {
+                if (!overflow && !isOverflow(page, slot) && updateRecordValue(pageNumber, slot, valueBytes)) {
+                    return value;
+                }
+
+                // the new value doesn't fit into the old record (or one of the values is in overflow pages),
+                // so the record is moved
+                deleteRecord(index, pageNumber, lastPage, slot);
+
+                return insert(key, value);
+            }
+
+            if (targetPage == -1 && freeSpace(page) + page.getShort(DEAD_BYTES) >= SLOT_LENGTH + recordLength) {
+                targetPage = pageNumber;
+            }
+
+            lastPage = pageNumber;
+            pageNumber = page.getInt(NEXT_PAGE);
         }
 
-        return null;
-    }
+        if (targetPage == -1) {
+            // every page of the bucket is full, link an overflow page to it
+            targetPage = allocatePage();
+            cache.writePage(lastPage).putInt(NEXT_PAGE, targetPage);
+        }
 
-    /**
-     * Gets specified node's address if it exists
-     * @param chainAddress address of the chain holding the node
-     * @param key key of the node
-     * @return node address, -1 if it doesn't exist
-     */
-    private int getNodeAddressIfExists(int chainAddress, String key) {
-        try {
-            int nextNode = chainAddress;
+        if (targetPage == directory[index] && cache.readPage(targetPage).getShort(RECORD_COUNT) == 0) {
+            chains++;
+        }
+
+        // the overflow pages are written first, the record page can be evicted while they are allocated
+        if (overflow) {
+            valueBytes = overflowReference(writeOverflow(valueBytes), valueBytes.length);
+        }
 
-            while (nextNode != -1) {
-                data.seek(nextNode);
+        ByteBuffer page = cache.writePage(targetPage);
 
-                int node = data.readInt();
+        // the record fits only if the holes of the page are reused
+        if (freeSpace(page) < SLOT_LENGTH + recordLength) {
+            compactPage(page);
+        }
 
-                String existingKey = data.readUTF();
+        appendRecord(page, hash, keyBytes, valueBytes, overflow);
 
-                if (existingKey.equals(key)) {
-                    return nextNode; // there nextNode is still the current node
-                }
+        elements++;
+        usedBytes += SLOT_LENGTH + recordLength;
+
+        if (bloomFilter != null) {
+            bloomFilter.add(key);
 
-                nextNode = node; // update the nextNode
+            // a filter with more keys than it was sized for gives too many false positives
+            if (elements > bloomFilter.getExpectedElements()) {
+                rebuildBloomFilter(bloomFilter.getFalsePositiveRate());
             }
-        } catch(IOException ex) {
-            ex.printStackTrace();
         }
 
-        return -1;
+        // grow the hash table by one slot if needed
+        if (usedBytes > (long) capacity * (PAGE_SIZE - PAGE_HEADER_LENGTH) * loadFactor) {
+            splitSlot();
+        }
+
+        return value;
     }
 
     /**
-     * Gets the address of the last node in a chain
+     * Gets the number of free bytes in a page that can be used without compacting it
      *
-     * @param chainAddress address of the chain
-     * @return node address in the data file
+     * @param page page data
+     * @return free bytes between the slot array and the records
      */
-    private int getLastChainNodeAddress(int chainAddress) {
-        try {
-            int nextNode = chainAddress;
-            int lastNode = chainAddress;
+    private static int freeSpace(ByteBuffer page) {
+        return page.getShort(FREE_END) - PAGE_HEADER_LENGTH - page.getShort(RECORD_COUNT) * SLOT_LENGTH;
+    }
+
+    /**
+     * Appends a record to a page that has enough free space for it
+     *
+     * @param page page data
+     * @param hash hash code of the key
+     * @param key key bytes
+     * @param value value bytes, or the overflow reference if the value is in overflow pages
+     * @param overflow whether the value is in overflow pages
+     */
+    private static void appendRecord(ByteBuffer page, int hash, byte[] key, byte[] value, boolean overflow) {
+        int count = page.getShort(RECORD_COUNT);
+        int offset = page.getShort(FREE_END) - RECORD_HEADER_LENGTH - key.length - value.length;
 
-            while (nextNode != -1) {
-                lastNode = nextNode;
+        page.putShort(offset, (short) key.length);
+        page.putShort(offset + 2, overflow ? OVERFLOW : (short) value.length);
 
-                data.seek(nextNode);
+        ByteBuffer record = page.duplicate();
+        record.position(offset + RECORD_HEADER_LENGTH);
+        record.put(key);
+        record.put(value);
 
-                nextNode = data.readInt();
-            }
+        int slot = PAGE_HEADER_LENGTH + count * SLOT_LENGTH;
 
-            return lastNode;
-        } catch (IOException ex) {
-            ex.printStackTrace();
-        }
+        page.putInt(slot, hash);
+        page.putShort(slot + 4, (short) offset);
 
-        return -1; // this will only be returned if a critical error occurs (can't open the file or something)
+        page.putShort(RECORD_COUNT, (short) (count + 1));
+        page.putShort(FREE_END, (short) offset);
     }
 
     /**
-     * Gets the address of a chain in the data file
+     * Finds the slot of a key in a page
      *
-     * @param index which hash table slot holds the address of the chain
-     * @return chain address, -1 if the specified table slot is empty
+     * @param page page data
+     * @param hash hash code of the key
+     * @param key key bytes
+     * @return slot number, -1 if the key is not in the page
      */
-    private int getChainAddressAtIndex(int index) {
-        int address = 0;
+    private static int findSlot(ByteBuffer page, int hash, byte[] key) {
+        int count = page.getShort(RECORD_COUNT);
 
-        try {
-            data.seek(index * tableElementLength);
+        for (int i = 0; i < count; i++) {
+            int slot = PAGE_HEADER_LENGTH + i * SLOT_LENGTH;
+            int offset = page.getShort(slot + 4);
 
-            address = data.readInt();
-        } catch (IOException ex) {
-            ex.printStackTrace();
+            // keys are only compared when the hash codes match
+            if (offset != TOMBSTONE && page.getInt(slot) == hash && keyEquals(page, offset, key)) {
+                return i;
+            }
         }
 
-        return address;
+        return -1;
     }
 
     /**
-     * Gets an element from the hash table
+     * Checks if the record at the given offset has the given key
      *
-     * @param key key value of the element
-     * @return value of the element with the specified key
+     * @param page page data
+     * @param offset record offset
+     * @param key key bytes
+     * @return true if the keys are equal
      */
-    @Override
-    public String get(String key) {
-        int index = hash(key);
-
-        int chainAddress = getChainAddressAtIndex(index);
+    private static boolean keyEquals(ByteBuffer page, int offset, byte[] key) {
+        if (page.getShort(offset) != key.length) {
+            return false;
+        }
 
-        if (chainAddress != -1) {
-            int nodeAddress = getNodeAddressIfExists(chainAddress, key);
+        int start = offset + RECORD_HEADER_LENGTH;
 
-            if (nodeAddress != -1) {
-                try {
-                    data.seek(nodeAddress);
-                    data.readInt();
-                    data.readUTF();
-                    return data.readUTF();
-                } catch (IOException ex) {
-                    ex.printStackTrace();
-                }
+        for (int i = 0; i < key.length; i++) {
+            if (page.get(start + i) != key[i]) {
+                return false;
             }
         }
 
-        return null;
+        return true;
     }
 
     /**
-     * Returns the number of elements in the hash table
+     * Updates existing record's value if the new value fits into the record
      *
-     * @return
+     * @param pageNumber page holding the record
+     * @param slot slot of the record
+     * @param value new value bytes
+     * @return true if the value was updated, false if it's longer than the old one
      */
-    @Override
-    public int elementCount() {
-        return elements;
+    private boolean updateRecordValue(int pageNumber, int slot, byte[] value) {
+        ByteBuffer page = cache.readPage(pageNumber);
+
+        int offset = page.getShort(PAGE_HEADER_LENGTH + slot * SLOT_LENGTH + 4);
+        int oldLength = page.getShort(offset + 2);
+
+        if (oldLength < value.length) {
+            return false;
+        }
+
+        page = cache.writePage(pageNumber);
+
+        page.putShort(offset + 2, (short) value.length);
+
+        ByteBuffer record = page.duplicate();
+        record.position(offset + RECORD_HEADER_LENGTH + page.getShort(offset));
+        record.put(value);
+
+        // the rest of the old value is a hole until the page is compacted
+        page.putShort(DEAD_BYTES, (short) (page.getShort(DEAD_BYTES) + oldLength - value.length));
+        usedBytes -= oldLength - value.length;
+
+        return true;
     }
 
     /**
-     * Returns the number of chains in the hash table
+     * Removes an element from the hash table
      *
-     * @return
+     * @param key key of the element
+     * @return removed value, null if the key doesn't exist
      */
-    @Override
-    public int chainCount() {
-        return chains;
-    }
+    public String remove(String key) {
+        if (bloomFilter != null && !bloomFilter.mightContain(key)) {
+            avoidedReads++;
+            return null;
+        }
 
-    /**
+        if (log == null) {
+            return delete(key);
+        }
+
+        String value = delete(key);
+
+        if (value != null) {
+            log.append(WriteAheadLog.REMOVE, key.getBytes(StandardCharsets.UTF_8), new byte[0]);
+
+            operationDone();
+        }
+
+        return value;
+    }
+
+    /**
+     * Removes an element from the hash table without logging it
+     *
+     * @param key key of the element
+     * @return removed value, null if the key doesn't exist
+     */
+    private String delete(String key) {
+        int hash = key.hashCode();
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        int index = address(hash);
+        int previousPage = -1;
+
+        for (int pageNumber = directory[index]; pageNumber != -1; ) {
+            ByteBuffer page = cache.readPage(pageNumber);
+
+            int slot = findSlot(page, hash, keyBytes);
+
+            if (slot != -1) {
+                String value = readValue(page, slot);
+
+                deleteRecord(index, pageNumber, previousPage, slot);
+
+                return value;
+            }
+
+            previousPage = pageNumber;
+            pageNumber = page.getInt(NEXT_PAGE);
+        }
+
+        return null;
+    }
+
+    /**
+     * Replaces a record with a tombstone. A page that is left without records is unlinked
+     * from the bucket and freed, unless it's the only page of the bucket
+     *
+     * @param index slot of the bucket
+     * @param pageNumber page holding the record
+     * @param previousPage page before it in the bucket, -1 if it's the first page
+     * @param slot slot of the record
+     */
+    private void deleteRecord(int index, int pageNumber, int previousPage, int slot) {
+        int position = PAGE_HEADER_LENGTH + slot * SLOT_LENGTH + 4;
+
+        ByteBuffer page = cache.readPage(pageNumber);
+        int offset = page.getShort(position);
+
+        // the overflow pages are freed first, the record's page can be evicted while they are read
+        if (page.getShort(offset + 2) == OVERFLOW) {
+            releaseOverflow(page.getInt(offset + RECORD_HEADER_LENGTH + page.getShort(offset)));
+        }
+
+        page = cache.writePage(pageNumber);
+
+        int length = SLOT_LENGTH + RECORD_HEADER_LENGTH + page.getShort(offset) + storedValueLength(page, offset);
+
+        page.putShort(position, (short) TOMBSTONE);
+
+        int deadBytes = page.getShort(DEAD_BYTES) + length;
+
+        // tombstones at the end of the slot array are dropped right away
+        int count = page.getShort(RECORD_COUNT);
+
+        while (count > 0 && page.getShort(PAGE_HEADER_LENGTH + (count - 1) * SLOT_LENGTH + 4) == TOMBSTONE) {
+            count--;
+            deadBytes -= SLOT_LENGTH;
+        }
+
+        page.putShort(RECORD_COUNT, (short) count);
+        page.putShort(DEAD_BYTES, (short) deadBytes);
+
+        elements--;
+        usedBytes -= length;
+
+        if (count > 0) {
+            return;
+        }
+
+        int nextPage = page.getInt(NEXT_PAGE);
+
+        if (previousPage != -1) {
+            cache.writePage(previousPage).putInt(NEXT_PAGE, nextPage);
+            releasePage(pageNumber);
+        } else if (nextPage != -1) {
+            // the first page of a bucket always has records unless the bucket is empty
+            directory[index] = nextPage;
+            directoryChanged = true;
+
+            releasePage(pageNumber);
+        } else {
+            clearPage(page, -1);
+            chains--;
+        }
+    }
+
+    /**
+     * Rewrites the records of a page contiguously, removing tombstones and holes
+     *
+     * @param page page data
+     */
+    private static void compactPage(ByteBuffer page) {
+        List<Record> records = new ArrayList<>();
+
+        readRecords(page, records);
+
+        clearPage(page, page.getInt(NEXT_PAGE));
+
+        for (Record record: records) {
+            appendRecord(page, record.hash, record.key, record.value, record.overflow);
+        }
+    }
+
+    /**
+     * Reads the value of a record. Reading an overflowing value uses the page cache,
+     * so the given page can't be used afterwards
+     *
+     * @param page page data
+     * @param slot slot of the record
+     * @return value of the record
+     */
+    private String readValue(ByteBuffer page, int slot) {
+        int offset = page.getShort(PAGE_HEADER_LENGTH + slot * SLOT_LENGTH + 4);
+        int valueOffset = offset + RECORD_HEADER_LENGTH + page.getShort(offset);
+
+        if (page.getShort(offset + 2) == OVERFLOW) {
+            return new String(readOverflow(page.getInt(valueOffset), page.getInt(valueOffset + 4)), StandardCharsets.UTF_8);
+        }
+
+        byte[] value = new byte[page.getShort(offset + 2)];
+
+        ByteBuffer record = page.duplicate();
+        record.position(valueOffset);
+        record.get(value);
+
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks if a record's value is in overflow pages
+     *
+     * @param page page data
+     * @param slot slot of the record
+     * @return true if the value is in overflow pages
+     */
+    private static boolean isOverflow(ByteBuffer page, int slot) {
+        int offset = page.getShort(PAGE_HEADER_LENGTH + slot * SLOT_LENGTH + 4);
+
+        return page.getShort(offset + 2) == OVERFLOW;
+    }
+
+    /**
+     * Gets the number of value bytes a record holds in it's page
+     *
+     * @param page page data
+     * @param offset record offset
+     * @return value length, or the length of the overflow reference
+     */
+    private static int storedValueLength(ByteBuffer page, int offset) {
+        int length = page.getShort(offset + 2);
+
+        return length == OVERFLOW ? OVERFLOW_REFERENCE_LENGTH : length;
+    }
+
+    /**
+     * Creates the reference a record holds instead of an overflowing value
+     *
+     * @param firstPage first overflow page of the value
+     * @param length value length
+     * @return reference bytes
+     */
+    private static byte[] overflowReference(int firstPage, int length) {
+        return ByteBuffer.allocate(OVERFLOW_REFERENCE_LENGTH).putInt(firstPage).putInt(length).array();
+    }
+
+    /**
+     * Writes a value into a chain of newly allocated overflow pages
+     *
+     * @param value value bytes
+     * @return first page of the chain
+     */
+    private int writeOverflow(byte[] value) {
+        int pageCapacity = PAGE_SIZE - OVERFLOW_HEADER_LENGTH;
+        int pages = (value.length + pageCapacity - 1) / pageCapacity;
+
+        // allocated from the last page to the first, so every page knows it's next page when it's written
+        int nextPage = -1;
+
+        for (int i = pages - 1; i >= 0; i--) {
+            int pageNumber = allocatePage();
+
+            fillOverflowPage(cache.writePage(pageNumber), value, i * pageCapacity, nextPage);
+
+            nextPage = pageNumber;
+        }
+
+        return nextPage;
+    }
+
+    /**
+     * Writes a part of a value into an overflow page
+     *
+     * @param page page data
+     * @param value value bytes
+     * @param from index of the first value byte that goes into the page
+     * @param nextPage next overflow page, -1 if it's the last page
+     */
+    private static void fillOverflowPage(ByteBuffer page, byte[] value, int from, int nextPage) {
+        int length = Math.min(PAGE_SIZE - OVERFLOW_HEADER_LENGTH, value.length - from);
+
+        page.putInt(NEXT_PAGE, nextPage);
+        page.putInt(OVERFLOW_LENGTH, length);
+
+        ByteBuffer data = page.duplicate();
+        data.position(OVERFLOW_HEADER_LENGTH);
+        data.put(value, from, length);
+    }
+
+    /**
+     * Reads a value from a chain of overflow pages
+     *
+     * @param firstPage first page of the chain
+     * @param length value length
+     * @return value bytes
+     */
+    private byte[] readOverflow(int firstPage, int length) {
+        byte[] value = new byte[length];
+        int read = 0;
+
+        for (int pageNumber = firstPage; pageNumber != -1; ) {
+            ByteBuffer page = cache.readPage(pageNumber);
+
+            int pageLength = page.getInt(OVERFLOW_LENGTH);
+
+            ByteBuffer data = page.duplicate();
+            data.position(OVERFLOW_HEADER_LENGTH);
+            data.get(value, read, pageLength);
+
+            read += pageLength;
+            pageNumber = page.getInt(NEXT_PAGE);
+        }
+
+        return value;
+    }
+
+    /**
+     * Adds the pages of an overflow chain to the free page list
+     *
+     * @param firstPage first page of the chain
+     */
+    private void releaseOverflow(int firstPage) {
+        for (int pageNumber = firstPage; pageNumber != -1; ) {
+            int nextPage = cache.readPage(pageNumber).getInt(NEXT_PAGE);
+
+            releasePage(pageNumber);
+
+            pageNumber = nextPage;
+        }
+    }
+
+    /**
+     * Splits the bucket at the split pointer into two buckets (linear hashing). The records
+     * of the bucket are divided between the old bucket's pages and the new bucket
+     */
+    private void splitSlot() {
+        int roundCapacity = initialCapacity << level;
+        int oldIndex = split;
+        int newIndex = split + roundCapacity;
+
+        if (newIndex == directory.length) {
+            directory = Arrays.copyOf(directory, directory.length * 2);
+        }
+
+        // read all records of the bucket, the pages can be evicted while they are rewritten
+        List<Integer> oldPages = new ArrayList<>();
+        List<Record> records = new ArrayList<>();
+
+        for (int pageNumber = directory[oldIndex]; pageNumber != -1; ) {
+            ByteBuffer page = cache.readPage(pageNumber);
+
+            readRecords(page, records);
+
+            oldPages.add(pageNumber);
+            pageNumber = page.getInt(NEXT_PAGE);
+        }
+
+        // advance the split pointer before rehashing, so address() already uses the new slot
+        capacity++;
+        split++;
+
+        if (split == roundCapacity) {
+            level++;
+            split = 0;
+        }
+
+        List<Record> staying = new ArrayList<>();
+        List<Record> moving = new ArrayList<>();
+
+        for (Record record: records) {
+            (address(record.hash) == oldIndex ? staying : moving).add(record);
+        }
+
+        // the old bucket keeps as many of it's pages as it needs, the rest are reused by the new bucket
+        int oldPageCount = writeRecords(oldPages, staying);
+
+        for (int i = oldPages.size() - 1; i >= oldPageCount; i--) {
+            releasePage(oldPages.get(i));
+        }
+
+        List<Integer> newPages = new ArrayList<>();
+        newPages.add(allocatePage());
+
+        writeRecords(newPages, moving);
+
+        directory[newIndex] = newPages.get(0);
+        directoryChanged = true;
+
+        // the split bucket was counted if it had records, now each half is counted separately
+        if (!staying.isEmpty() && !moving.isEmpty()) {
+            chains++;
+        }
+    }
+
+    /**
+     * Reads all records of a page
+     *
+     * @param page page data
+     * @param records list to add the records to
+     */
+    private static void readRecords(ByteBuffer page, List<Record> records) {
+        int count = page.getShort(RECORD_COUNT);
+
+        for (int i = 0; i < count; i++) {
+            int slot = PAGE_HEADER_LENGTH + i * SLOT_LENGTH;
+            int offset = page.getShort(slot + 4);
+
+            if (offset == TOMBSTONE) {
+                continue;
+            }
+
+            // an overflowing value is kept as it's reference, the overflow pages stay where they are
+            byte[] key = new byte[page.getShort(offset)];
+            byte[] value = new byte[storedValueLength(page, offset)];
+
+            ByteBuffer record = page.duplicate();
+            record.position(offset + RECORD_HEADER_LENGTH);
+            record.get(key);
+            record.get(value);
+
+            records.add(new Record(page.getInt(slot), key, value, page.getShort(offset + 2) == OVERFLOW));
+        }
+    }
+
+    /**
+     * Writes records into a bucket's pages, the existing contents of the pages are replaced.
+     * Pages are allocated if the given ones are not enough
+     *
+     * @param pages pages of the bucket, new pages are added to the list
+     * @param records records to write
+     * @return number of pages used (at least one)
+     */
+    private int writeRecords(List<Integer> pages, List<Record> records) {
+        int used = 1;
+
+        ByteBuffer page = cache.writePage(pages.get(0));
+        clearPage(page, -1);
+
+        for (Record record: records) {
+            int length = SLOT_LENGTH + RECORD_HEADER_LENGTH + record.key.length + record.value.length;
+
+            if (freeSpace(page) < length) {
+                if (used == pages.size()) {
+                    pages.add(allocatePage());
+                }
+
+                int nextPage = pages.get(used++);
+
+                cache.writePage(pages.get(used - 2)).putInt(NEXT_PAGE, nextPage);
+
+                page = cache.writePage(nextPage);
+                clearPage(page, -1);
+            }
+
+            appendRecord(page, record.hash, record.key, record.value, record.overflow);
+        }
+
+        return used;
+    }
+
+    /**
+     * Gets an element from the hash table
+     *
+     * @param key key value of the element
+     * @return value of the element with the specified key
+     */
+    @Override
+    public String get(String key) {
+        if (bloomFilter != null && !bloomFilter.mightContain(key)) {
+            avoidedReads++;
+            return null;
+        }
+
+        int hash = key.hashCode();
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        for (int pageNumber = directory[address(hash)]; pageNumber != -1; ) {
+            ByteBuffer page = cache.readPage(pageNumber);
+
+            int slot = findSlot(page, hash, keyBytes);
+
+            if (slot != -1) {
+                return readValue(page, slot);
+            }
+
+            pageNumber = page.getInt(NEXT_PAGE);
+        }
+
+        return null;
+    }
+
+    /**
+     * Inserts new elements or updates the existing ones. Elements are inserted grouped by bucket,
+     * in the order of the buckets' first pages in the file, so the pages of a bucket are read once
+     * while they are cached instead of jumping around the file. With a write-ahead log the batch
+     * is synced once
+     *
+     * @param keys keys of the elements
+     * @param values values of the elements (values[i] is the value of keys[i])
+     */
+    @Override
+    public void putAll(String[] keys, String[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("There must be a value for every key");
+        }
+
+        if (log == null) {
+            for (long entry: bucketOrder(keys)) {
+                int i = (int) entry;
+
+                insert(keys[i], values[i]);
+            }
+
+            return;
+        }
+
+        // the whole batch is synced to the log with a single fsync
+        log.beginBatch();
+
+        for (long entry: bucketOrder(keys)) {
+            int i = (int) entry;
+
+            insert(keys[i], values[i]);
+
+            log.append(WriteAheadLog.PUT, keys[i].getBytes(StandardCharsets.UTF_8), values[i].getBytes(StandardCharsets.UTF_8));
+
+            // a big batch can fill the page cache with modified pages, it's log is synced at the checkpoint
+            if (needsCheckpoint()) {
+                checkpoint();
+            }
+        }
+
+        log.endBatch();
+    }
+
+    /**
+     * Gets many elements from the hash table at once. Keys are grouped by bucket and the buckets
+     * are read in the order of their first pages in the file, every page of a bucket is read once
+     * for all keys of the batch that belong to it
+     *
+     * @param keys key values of the elements
+     * @return values of the elements in the same order as the keys, null for the keys that don't exist
+     */
+    @Override
+    public String[] getAll(String[] keys) {
+        String[] values = new String[keys.length];
+
+        long[] order = bucketOrder(keys);
+
+        int[] hashes = new int[keys.length];
+        byte[][] keyBytes = new byte[keys.length][];
+
+        for (int start = 0; start < order.length; ) {
+            int firstPage = directory[address(keys[(int) order[start]].hashCode())];
+
+            // keys of the same bucket are next to each other
+            int end = start;
+
+            while (end < order.length && order[end] >>> 32 == order[start] >>> 32) {
+                int i = (int) order[end];
+
+                // keys ruled out by the Bloom filter are left without key bytes and aren't searched for
+                if (bloomFilter != null && !bloomFilter.mightContain(keys[i])) {
+                    avoidedReads++;
+                } else {
+                    hashes[i] = keys[i].hashCode();
+                    keyBytes[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+                }
+
+                end++;
+            }
+
+            int remaining = 0;
+
+            for (int j = start; j < end; j++) {
+                if (keyBytes[(int) order[j]] != null) {
+                    remaining++;
+                }
+            }
+
+            for (int pageNumber = firstPage; pageNumber != -1 && remaining > 0; ) {
+                ByteBuffer page = cache.readPage(pageNumber);
+
+                for (int j = start; j < end; j++) {
+                    int i = (int) order[j];
+
+                    if (keyBytes[i] == null || values[i] != null) {
+                        continue;
+                    }
+
+                    int slot = findSlot(page, hashes[i], keyBytes[i]);
+
+                    if (slot != -1) {
+                        values[i] = readValue(page, slot);
+                        remaining--;
+
+                        // reading an overflowing value can evict the page
+                        page = cache.readPage(pageNumber);
+                    }
+                }
+
+                pageNumber = page.getInt(NEXT_PAGE);
+            }
+
+            start = end;
+        }
+
+        return values;
+    }
+
+    /**
+     * Sorts the indexes of keys by the first page of their bucket. Every other batch visits the pages
+     * in descending order (like an elevator), so a batch starts with the pages the previous batch
+     * has just cached instead of the pages that were evicted first. Keys of the same bucket always stay
+     * in the batch's order, so a key repeated in a batch ends up with it's last value
+     *
+     * @param keys keys to sort
+     * @return first page of the key's bucket (inverted in descending batches) in the high 32 bits
+     * and the key's index in the low 32 bits
+     */
+    private long[] bucketOrder(String[] keys) {
+        long[] order = new long[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            int page = directory[address(keys[i].hashCode())];
+
+            order[i] = ((long) (descendingBatch ? ~page : page) << 32) | i;
+        }
+
+        Arrays.sort(order);
+
+        descendingBatch = !descendingBatch;
+
+        return order;
+    }
+
+    /**
+     * Returns the number of elements in the hash table
+     *
+     * @return
+     */
+    @Override
+    public int elementCount() {
+        return elements;
+    }
+
+    /**
+     * Returns the number of chains in the hash table (buckets that are not empty)
+     *
+     * @return
+     */
+    @Override
+    public int chainCount() {
+        return chains;
+    }
+
+    /**
      * Returns the hash function value for the given key
      *
      * @param key key to hash
@@ -441,18 +1463,523 @@ public class DiskHashTable implements DataHashTable {
      */
     @Override
     public int hash(String key) {
-        int code = key.hashCode();
-        return Math.abs(code) % capacity;
+        return address(key.hashCode());
+    }
+
+    /**
+     * Gets the slot of a hash code
+     *
+     * @param hash hash code of a key
+     * @return slot index
+     */
+    private int address(int hash) {
+        int code = hash & Integer.MAX_VALUE;
+
+        int index = code % (initialCapacity << level);
+
+        // the slot was already split in this round, so the key can be in it's new slot
+        if (index < split) {
+            index = code % (initialCapacity << (level + 1));
+        }
+
+        return index;
+    }
+
+    /**
+     * Rewrites the table into a new file with the live records of every bucket written contiguously
+     * in bucket order, so the file has no free pages, holes or tombstones and a scan over the buckets
+     * reads the file sequentially.
+     *
+     * The new data file (with it's header) and directory file are synced before the data file atomically
+     * replaces the old one. A crash at any point leaves either the old or the new table, and an
+     * UncheckedIOException is thrown if the files can't be written or swapped
+     */
+    public void compact() {
+        // everything must be in the old files, the new files are built from them and the old ones are kept
+        // if the compaction fails (with a write-ahead log this is a checkpoint)
+        flush();
+
+        String tempFile = fileName + ".compact";
+        String tempDirectoryFile = fileName + ".dir.compact";
+
+        Utils.createFile(tempFile);
+
+        // first page of every bucket in the new file (page 0 is the header)
+        int[] compacted = new int[directory.length];
+        int compactedPages = 1;
+
+        long liveBytes = 0;
+
+        try (RandomAccessFile target = new RandomAccessFile(tempFile, "rw")) {
+            FileChannel channel = target.getChannel();
+
+            ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+            ByteBuffer overflowPage = ByteBuffer.allocate(PAGE_SIZE);
+            List<Record> records = new ArrayList<>();
+
+            int pageCapacity = PAGE_SIZE - OVERFLOW_HEADER_LENGTH;
+
+            for (int i = 0; i < capacity; i++) {
+                records.clear();
+
+                for (int pageNumber = directory[i]; pageNumber != -1; ) {
+                    ByteBuffer source = cache.readPage(pageNumber);
+
+                    readRecords(source, records);
+
+                    pageNumber = source.getInt(NEXT_PAGE);
+                }
+
+                // overflowing values are copied in front of their bucket's pages
+                for (Record record: records) {
+                    if (!record.overflow) {
+                        continue;
+                    }
+
+                    ByteBuffer reference = ByteBuffer.wrap(record.value);
+                    byte[] value = readOverflow(reference.getInt(0), reference.getInt(4));
+
+                    record.value = overflowReference(compactedPages, value.length);
+
+                    for (int from = 0; from < value.length; from += pageCapacity) {
+                        int nextPage = from + pageCapacity < value.length ? compactedPages + 1 : -1;
+
+                        fillOverflowPage(overflowPage, value, from, nextPage);
+                        writePage(channel, overflowPage, compactedPages++);
+                    }
+                }
+
+                compacted[i] = compactedPages;
+
+                clearPage(page, -1);
+
+                for (Record record: records) {
+                    int length = SLOT_LENGTH + RECORD_HEADER_LENGTH + record.key.length + record.value.length;
+
+                    if (freeSpace(page) < length) {
+                        // the bucket continues on the next page of the file
+                        page.putInt(NEXT_PAGE, compactedPages + 1);
+                        writePage(channel, page, compactedPages++);
+
+                        clearPage(page, -1);
+                    }
+
+                    appendRecord(page, record.hash, record.key, record.value, record.overflow);
+
+                    liveBytes += length;
+                }
+
+                writePage(channel, page, compactedPages++);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+            writeHeader(header, compactedPages, -1, liveBytes);
+            writePage(channel, header, 0);
+
+            // the new files must be on the disk before they replace the old ones
+            channel.force(true);
+
+            writeDirectory(tempDirectoryFile, compacted, true);
+        } catch (IOException ex) {
+            new File(tempFile).delete();
+            new File(tempDirectoryFile).delete();
+
+            throw new UncheckedIOException("Hash table " + fileName + " can't be compacted", ex);
+        }
+
+        long cacheSize = (long) cache.getCapacity() * PAGE_SIZE;
+
+        try {
+            // the old file was flushed, so it's cached pages don't need to be written
+            data.close();
+
+            // the compaction is committed by this rename
+            Files.move(Paths.get(tempFile), Paths.get(fileName), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+
+            // the directory file can only be replaced after the data file's rename is on the disk
+            syncParentDirectory();
+        } catch (IOException ex) {
+            new File(tempFile).delete();
+            new File(tempDirectoryFile).delete();
+
+            // the old files are untouched, the table keeps using them
+            openData(cacheSize);
+
+            throw new UncheckedIOException("Compacted hash table file can't replace " + fileName, ex);
+        }
+
+        openData(cacheSize);
+
+        directory = compacted;
+
+        pageCount = compactedPages;
+        firstFreePage = -1;
+        usedBytes = liveBytes;
+
+        try {
+            Files.move(Paths.get(tempDirectoryFile), Paths.get(fileName + ".dir"), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+
+            syncParentDirectory();
+        } catch (IOException ex) {
+            // the table in memory is correct, the directory is written again on the next flush
+            directoryChanged = true;
+
+            throw new UncheckedIOException("Compacted directory file can't replace " + fileName + ".dir", ex);
+        }
+
+        // removed keys are still in the filter, a new one only has the live keys
+        if (bloomFilter != null) {
+            rebuildBloomFilter(bloomFilter.getFalsePositiveRate());
+        }
+
+        flush();
+    }
+
+    /**
+     * Opens the data file and creates a new page cache for it
+     *
+     * @param cacheSize maximum number of bytes the page cache can occupy
+     */
+    private void openData(long cacheSize) {
+        try {
+            data = new RandomAccessFile(fileName, "rw");
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Hash table file " + fileName + " can't be opened", ex);
+        }
+
+        cache = new PageCache(data.getChannel(), PAGE_SIZE, cacheSize);
+        cache.setNoSteal(log != null);
+    }
+
+    /**
+     * Finishes or rolls back a compaction that was interrupted by a crash. If the compacted data file
+     * is still there, the compaction wasn't committed and it's files are deleted. Otherwise the data file
+     * was already replaced and the compacted directory file replaces the old one
+     *
+     * @throws IOException if the directory file can't be replaced
+     */
+    private void finishCompaction() throws IOException {
+        Path tempFile = Paths.get(fileName + ".compact");
+        Path tempDirectoryFile = Paths.get(fileName + ".dir.compact");
+
+        if (Files.exists(tempFile)) {
+            Files.delete(tempFile);
+            Files.deleteIfExists(tempDirectoryFile);
+        } else if (Files.exists(tempDirectoryFile)) {
+            Files.move(tempDirectoryFile, Paths.get(fileName + ".dir"), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+
+            syncParentDirectory();
+        }
+    }
+
+    /**
+     * Syncs the directory holding the table's files, so renamed files survive a crash
+     * (not every platform can open a directory, there the renames are left to the file system)
+     */
+    private void syncParentDirectory() {
+        Path parent = Paths.get(fileName).toAbsolutePath().getParent();
+
+        try (FileChannel channel = FileChannel.open(parent, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            // the renames are still atomic, only their durability depends on the file system
+        }
+    }
+
+    /**
+     * Writes a whole page to the file, bypassing the page cache
+     *
+     * @param channel file to write to
+     * @param page page data
+     * @param pageNumber number of the page in the file
+     * @throws IOException if the file can't be written
+     */
+    private static void writePage(FileChannel channel, ByteBuffer page, int pageNumber) throws IOException {
+        page.clear();
+
+        long position = (long) pageNumber * PAGE_SIZE;
+
+        while (page.hasRemaining()) {
+            channel.write(page, position + page.position());
+        }
     }
 
     /**
-     * Closes the data file
+     * Sets how safely the changes are kept, the periodic mode syncs the log every 100 milliseconds
+     *
+     * @param durability durability mode
+     */
+    public void setDurability(Durability durability) {
+        setDurability(durability, DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * Sets how safely the changes are kept. A checkpoint is made, so all changes made so far are on the disk
+     *
+     * @param durability durability mode
+     * @param syncInterval milliseconds between log syncs in periodic mode
+     */
+    public void setDurability(Durability durability, long syncInterval) {
+        if (log != null) {
+            checkpoint();
+
+            log.close();
+            log = null;
+
+            new File(fileName + ".wal").delete();
+        }
+
+        this.durability = durability;
+
+        if (durability == Durability.NONE) {
+            cache.setNoSteal(false);
+            return;
+        }
+
+        log = new WriteAheadLog(fileName + ".wal", durability, syncInterval);
+        cache.setNoSteal(true);
+
+        // the changes made so far are written to the files, so the log only needs the later ones
+        checkpoint();
+    }
+
+    /**
+     * Lets the log sync the logged operation and makes a checkpoint if too many changes are not in the files
+     */
+    private void operationDone() {
+        if (needsCheckpoint()) {
+            checkpoint();
+        } else {
+            log.operationDone();
+        }
+    }
+
+    /**
+     * Checks if a checkpoint is needed. Modified pages can't leave the page cache, so the cache
+     * is kept at most half dirty, and the log is kept short so recovery is fast
+     *
+     * @return true if a checkpoint should be made
+     */
+    private boolean needsCheckpoint() {
+        return cache.getDirtyPages() > cache.getCapacity() / 2 || log.length() > CHECKPOINT_LOG_SIZE;
+    }
+
+    /**
+     * Writes all changes to the files and empties the log. The modified pages and the directory
+     * are logged and synced first, so the files can be repaired if the checkpoint is interrupted
+     */
+    private void checkpoint() {
+        writeHeader();
+
+        for (long pageNumber: cache.getDirtyPageNumbers()) {
+            byte[] image = new byte[PAGE_SIZE];
+
+            ByteBuffer page = cache.readPage(pageNumber).duplicate();
+            page.clear();
+            page.get(image);
+
+            log.append(WriteAheadLog.PAGE, ByteBuffer.allocate(4).putInt((int) pageNumber).array(), image);
+        }
+
+        ByteBuffer directoryImage = ByteBuffer.allocate(capacity * tableElementLength);
+        directoryImage.asIntBuffer().put(directory, 0, capacity);
+
+        log.append(WriteAheadLog.DIRECTORY, directoryImage.array(), new byte[0]);
+        log.append(WriteAheadLog.CHECKPOINT, new byte[0], new byte[0]);
+        log.commit();
+
+        cache.flush();
+        writeDirectory();
+
+        try {
+            data.getChannel().force(true);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+
+        if (bloomFilter != null) {
+            bloomFilter.write(fileName + ".bloom");
+        }
+
+        log.truncate();
+
+        checkpoints++;
+    }
+
+    /**
+     * Gets the durability mode of the table
+     *
+     * @return durability mode
+     */
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Gets the write-ahead log of the table (used to read sync statistics)
+     *
+     * @return log, null if the durability mode is NONE
+     */
+    public WriteAheadLog getLog() {
+        return log;
+    }
+
+    /**
+     * Gets the number of checkpoints made
+     *
+     * @return number of checkpoints
+     */
+    public long getCheckpoints() {
+        return checkpoints;
+    }
+
+    /**
+     * Puts a Bloom filter in front of the table, so lookups of absent keys usually don't read any pages.
+     * The filter is built from the keys already in the table and kept up to date afterwards
+     *
+     * @param falsePositiveRate probability that the filter lets a lookup of an absent key through
+     */
+    public void useBloomFilter(double falsePositiveRate) {
+        rebuildBloomFilter(falsePositiveRate);
+    }
+
+    /**
+     * Creates a new Bloom filter with room for twice the current number of elements and adds all keys to it
+     *
+     * @param falsePositiveRate false positive rate of the filter
+     */
+    private void rebuildBloomFilter(double falsePositiveRate) {
+        bloomFilter = new BloomFilter(Math.max(1024, elements * 2), falsePositiveRate);
+
+        List<Record> records = new ArrayList<>();
+
+        for (int i = 0; i < capacity; i++) {
+            for (int pageNumber = directory[i]; pageNumber != -1; ) {
+                ByteBuffer page = cache.readPage(pageNumber);
+
+                records.clear();
+                readRecords(page, records);
+
+                for (Record record: records) {
+                    bloomFilter.add(new String(record.key, StandardCharsets.UTF_8));
+                }
+
+                pageNumber = page.getInt(NEXT_PAGE);
+            }
+        }
+    }
+
+    /**
+     * Gets the Bloom filter of the table
+     *
+     * @return filter, null if the table doesn't use one
+     */
+    public BloomFilter getBloomFilter() {
+        return bloomFilter;
+    }
+
+    /**
+     * Gets the number of lookups the Bloom filter answered without reading any pages
+     *
+     * @return number of avoided lookups
+     */
+    public long getAvoidedReads() {
+        return avoidedReads;
+    }
+
+    /**
+     * Gets the page cache of the table (used to read hit/miss statistics)
+     *
+     * @return page cache
+     */
+    public PageCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Gets the number of pages in the data file (including the header page and free pages)
+     *
+     * @return number of pages
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Writes the header, the modified pages, the directory and the Bloom filter to the files.
+     * With a write-ahead log this is a checkpoint
+     */
+    public void flush() {
+        if (log != null) {
+            checkpoint();
+            return;
+        }
+
+        writeHeader();
+
+        cache.flush();
+
+        if (directoryChanged) {
+            writeDirectory();
+        }
+
+        if (bloomFilter != null) {
+            bloomFilter.write(fileName + ".bloom");
+        }
+    }
+
+    /**
+     * Writes the header, the modified pages and the directory and closes the data file
      */
     public void close() {
+        flush();
+
+        if (log != null) {
+            log.close();
+            log = null;
+
+            new File(fileName + ".wal").delete();
+        }
+
         try {
             data.close();
         } catch (IOException ex) {
             ex.printStackTrace();
         }
     }
+
+    /**
+     * Deletes every file a closed table keeps: the data, the directory, the bloom filter, the write-ahead log and
+     * the temporary files of an unfinished compaction
+     *
+     * @param fileName name of the table's data file
+     */
+    public static void deleteFiles(String fileName) {
+        for (String suffix: new String[] {"", ".dir", ".bloom", ".wal", ".compact", ".dir.compact"}) {
+            new File(fileName + suffix).delete();
+        }
+    }
+
+    /**
+     * Record read from a page
+     */
+    private static class Record {
+
+        private int hash;
+        private byte[] key;
+        private byte[] value;
+
+        // whether value is a reference to overflow pages
+        private boolean overflow;
+
+        private Record(int hash, byte[] key, byte[] value, boolean overflow) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.overflow = overflow;
+        }
+    }
 }
@@ -421,7 +421,7 @@ public class DiskList implements DataList, Printable {
      * @param length how many elements to print
      */
     @Override
-    public void print(int from, int length) {
+    public void print(long from, long length) {
         if (from < 0 || length <= 0 || from + length > this.length) {
             throw new IllegalArgumentException("Invalid starting index and/or length");
         }
@@ -429,9 +429,9 @@ public class DiskList implements DataList, Printable {
         try {
             data.seek(first);
 
-            int index = 0;
+            long index = 0;
 
-            for (int i = 0; i < length; i++) {
+            for (long i = 0; i < length; i++) {
                 int next = data.readInt();
 
                 data.readInt(); // skip the previous node address
@@ -0,0 +1,481 @@
+package com.algo.main.datastructures;
+
+import com.algo.main.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * Hash table with primitive long keys and values stored in a file as a flat array of fixed-size slots.
+ * Uses open addressing with linear probing, so a lookup usually reads a single page, and pages
+ * are accessed through a page cache. The table is doubled by rehashing it into a new file
+ */
+@SuppressWarnings("unused")
+public class DiskLongHashTable implements LongHashTable {
+
+    /**
+     * IMPORTANT
+     *
+     * Page 0 is the file header, the slots start at page 1 and never cross page boundaries.
+     * Slot layout: long key (EMPTY if the slot is free), long value
+     */
+
+    // how many of the hash table needs to be filled in order for it to expand
+    private static final double loadFactor = 0.75;
+
+    // key of an empty slot, the element with this key is stored in the header
+    private static final long EMPTY = 0;
+
+    // file header identification
+    private static final int MAGIC = 0x444C4831; // "DLH1"
+    private static final int VERSION = 1;
+
+    // offsets of the file header fields
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_ELEMENTS = 16;
+    private static final int HEADER_HAS_EMPTY_KEY = 24;
+    private static final int HEADER_EMPTY_KEY_VALUE = 28;
+
+    // number of bytes in a single page
+    private static final int PAGE_SIZE = 4096;
+
+    // number of bytes a single slot occupies
+    private static final int SLOT_LENGTH = 16;
+
+    // number of slots in a page
+    private static final int SLOTS_PER_PAGE = PAGE_SIZE / SLOT_LENGTH;
+
+    // default page cache budget
+    private static final long DEFAULT_CACHE_SIZE = 8 * 1024 * 1024;
+
+    // file used by the hash table
+    private String fileName;
+
+    // file with the hash table's pages and it's cached pages
+    private RandomAccessFile data;
+    private PageCache cache;
+
+    // page cache budget
+    private long cacheSize;
+
+    // number of slots (always a power of two)
+    private long capacity;
+
+    // capacity - 1, used instead of modulo
+    private long mask;
+
+    // how many elements are in the table (including the element with the EMPTY key)
+    private long elements;
+
+    // whether the element with the EMPTY key exists and it's value
+    private boolean hasEmptyKey;
+    private long emptyKeyValue;
+
+    /**
+     * Class constructor
+     *
+     * @param fileName name of the file where elements will be stored
+     * @param capacity initial number of slots (rounded up to a power of two)
+     */
+    public DiskLongHashTable(String fileName, long capacity) {
+        this(fileName, capacity, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Class constructor, creates a new table (an existing file is replaced)
+     *
+     * @param fileName name of the file where elements will be stored
+     * @param capacity initial number of slots (rounded up to a power of two)
+     * @param cacheSize maximum number of bytes the page cache can occupy
+     */
+    public DiskLongHashTable(String fileName, long capacity, long cacheSize) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+
+        this.fileName = fileName;
+        this.cacheSize = cacheSize;
+
+        // a page of slots is the smallest table
+        this.capacity = SLOTS_PER_PAGE;
+
+        while (this.capacity < capacity) {
+            this.capacity <<= 1;
+        }
+
+        mask = this.capacity - 1;
+
+        Utils.createFile(fileName);
+
+        open(fileName);
+        setSize();
+    }
+
+    /**
+     * Class constructor, opens an existing table that was flushed or closed
+     *
+     * @param fileName name of the file where elements are stored
+     */
+    public DiskLongHashTable(String fileName) {
+        if (!new File(fileName).exists()) {
+            throw new IllegalArgumentException("Hash table file " + fileName + " doesn't exist");
+        }
+
+        this.fileName = fileName;
+        this.cacheSize = DEFAULT_CACHE_SIZE;
+
+        open(fileName);
+
+        ByteBuffer header = cache.readPage(0);
+
+        if (header.getInt(HEADER_MAGIC) != MAGIC || header.getInt(HEADER_VERSION) != VERSION) {
+            try {
+                data.close();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+
+            throw new IllegalArgumentException(fileName + " is not a long hash table file");
+        }
+
+        capacity = header.getLong(HEADER_CAPACITY);
+        mask = capacity - 1;
+        elements = header.getLong(HEADER_ELEMENTS);
+        hasEmptyKey = header.getInt(HEADER_HAS_EMPTY_KEY) != 0;
+        emptyKeyValue = header.getLong(HEADER_EMPTY_KEY_VALUE);
+    }
+
+    /**
+     * Opens the data file and creates it's page cache
+     *
+     * @param fileName data file
+     */
+    private void open(String fileName) {
+        try {
+            data = new RandomAccessFile(fileName, "rw");
+            cache = new PageCache(data.getChannel(), PAGE_SIZE, cacheSize);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Sets the file length for the current capacity, new pages are read as zeros (empty slots)
+     */
+    private void setSize() {
+        try {
+            data.setLength((1 + capacity / SLOTS_PER_PAGE) * PAGE_SIZE);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the table's size to the header page
+     */
+    private void writeHeader() {
+        ByteBuffer header = cache.writePage(0);
+
+        header.putInt(HEADER_MAGIC, MAGIC);
+        header.putInt(HEADER_VERSION, VERSION);
+        header.putLong(HEADER_CAPACITY, capacity);
+        header.putLong(HEADER_ELEMENTS, elements);
+        header.putInt(HEADER_HAS_EMPTY_KEY, hasEmptyKey ? 1 : 0);
+        header.putLong(HEADER_EMPTY_KEY_VALUE, emptyKeyValue);
+    }
+
+    /**
+     * Inserts a new element or updates the existing one
+     *
+     * @param key key of the element
+     * @param value value of the element
+     */
+    @Override
+    public void put(long key, long value) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                elements++;
+            }
+
+            emptyKeyValue = value;
+            return;
+        }
+
+        long slot = MemoryLongHashTable.mix(key) & mask;
+
+        while (true) {
+            ByteBuffer page = cache.readPage(page(slot));
+            long existing = page.getLong(offset(slot));
+
+            if (existing == key) {
+                cache.writePage(page(slot)).putLong(offset(slot) + 8, value);
+                return;
+            }
+
+            if (existing == EMPTY) {
+                break;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        ByteBuffer page = cache.writePage(page(slot));
+
+        page.putLong(offset(slot), key);
+        page.putLong(offset(slot) + 8, value);
+
+        elements++;
+
+        // resize the hash table if needed
+        if (elements > capacity * loadFactor) {
+            resize(capacity * 2);
+        }
+    }
+
+    /**
+     * Gets an element from the hash table
+     *
+     * @param key key of the element
+     * @param defaultValue value returned if the key doesn't exist
+     * @return value of the element with the specified key, defaultValue if the key doesn't exist
+     */
+    @Override
+    public long get(long key, long defaultValue) {
+        if (key == EMPTY) {
+            return hasEmptyKey ? emptyKeyValue : defaultValue;
+        }
+
+        long slot = find(key);
+
+        return slot == -1 ? defaultValue : cache.readPage(page(slot)).getLong(offset(slot) + 8);
+    }
+
+    /**
+     * Checks if the hash table has an element with the specified key
+     *
+     * @param key key of the element
+     * @return true if the key exists
+     */
+    @Override
+    public boolean containsKey(long key) {
+        return key == EMPTY ? hasEmptyKey : find(key) != -1;
+    }
+
+    /**
+     * Removes an element from the hash table
+     *
+     * @param key key of the element
+     * @return true if the element was removed, false if the key doesn't exist
+     */
+    @Override
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) {
+                return false;
+            }
+
+            hasEmptyKey = false;
+            elements--;
+
+            return true;
+        }
+
+        long gap = find(key);
+
+        if (gap == -1) {
+            return false;
+        }
+
+        // move back the following elements of the cluster that can't be found past the gap anymore
+        for (long next = (gap + 1) & mask; ; next = (next + 1) & mask) {
+            ByteBuffer page = cache.readPage(page(next));
+
+            long nextKey = page.getLong(offset(next));
+
+            if (nextKey == EMPTY) {
+                break;
+            }
+
+            long home = MemoryLongHashTable.mix(nextKey) & mask;
+
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                long nextValue = page.getLong(offset(next) + 8);
+
+                ByteBuffer gapPage = cache.writePage(page(gap));
+                gapPage.putLong(offset(gap), nextKey);
+                gapPage.putLong(offset(gap) + 8, nextValue);
+
+                gap = next;
+            }
+        }
+
+        cache.writePage(page(gap)).putLong(offset(gap), EMPTY);
+
+        elements--;
+
+        return true;
+    }
+
+    /**
+     * Finds the slot of a key
+     *
+     * @param key key to look for (not EMPTY)
+     * @return slot index, -1 if the key doesn't exist
+     */
+    private long find(long key) {
+        long slot = MemoryLongHashTable.mix(key) & mask;
+
+        while (true) {
+            long existing = cache.readPage(page(slot)).getLong(offset(slot));
+
+            if (existing == key) {
+                return slot;
+            }
+
+            if (existing == EMPTY) {
+                return -1;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Rehashes the table into a new file with more slots. The old file is read sequentially
+     *
+     * @param newCapacity new number of slots (power of two)
+     */
+    private void resize(long newCapacity) {
+        String tempFile = fileName + ".resize";
+
+        Utils.createFile(tempFile);
+
+        RandomAccessFile oldData = data;
+        PageCache oldCache = cache;
+        long oldCapacity = capacity;
+
+        capacity = newCapacity;
+        mask = newCapacity - 1;
+
+        open(tempFile);
+        setSize();
+
+        long[] pageKeys = new long[SLOTS_PER_PAGE];
+        long[] pageValues = new long[SLOTS_PER_PAGE];
+
+        for (long pageNumber = 1; pageNumber <= oldCapacity / SLOTS_PER_PAGE; pageNumber++) {
+            // the old page is copied out, it's buffer is only valid until the old cache is used again
+            ByteBuffer page = oldCache.readPage(pageNumber);
+
+            for (int i = 0; i < SLOTS_PER_PAGE; i++) {
+                pageKeys[i] = page.getLong(i * SLOT_LENGTH);
+                pageValues[i] = page.getLong(i * SLOT_LENGTH + 8);
+            }
+
+            for (int i = 0; i < SLOTS_PER_PAGE; i++) {
+                if (pageKeys[i] == EMPTY) {
+                    continue;
+                }
+
+                long slot = MemoryLongHashTable.mix(pageKeys[i]) & mask;
+
+                while (cache.readPage(page(slot)).getLong(offset(slot)) != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+
+                ByteBuffer target = cache.writePage(page(slot));
+
+                target.putLong(offset(slot), pageKeys[i]);
+                target.putLong(offset(slot) + 8, pageValues[i]);
+            }
+        }
+
+        // the new table is written to it's file, the old file is replaced so it's cached pages aren't written
+        close();
+
+        try {
+            oldData.close();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+
+        File current = new File(fileName);
+
+        if (current.exists()) {
+            current.delete();
+        }
+
+        new File(tempFile).renameTo(current);
+
+        open(fileName);
+    }
+
+    /**
+     * Gets the page of a slot
+     *
+     * @param slot slot index
+     * @return page number
+     */
+    private static long page(long slot) {
+        return 1 + slot / SLOTS_PER_PAGE;
+    }
+
+    /**
+     * Gets the offset of a slot in it's page
+     *
+     * @param slot slot index
+     * @return offset in bytes
+     */
+    private static int offset(long slot) {
+        return (int) (slot % SLOTS_PER_PAGE) * SLOT_LENGTH;
+    }
+
+    /**
+     * Returns the number of elements in the hash table
+     *
+     * @return
+     */
+    @Override
+    public int elementCount() {
+        return (int) Math.min(Integer.MAX_VALUE, elements);
+    }
+
+    /**
+     * Gets the page cache of the table (used to read hit/miss statistics)
+     *
+     * @return page cache
+     */
+    public PageCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Writes the header and the modified pages to the file
+     */
+    public void flush() {
+        writeHeader();
+
+        cache.flush();
+    }
+
+    /**
+     * Writes the header and the modified pages and closes the file
+     */
+    public void close() {
+        flush();
+
+        try {
+            data.close();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    // GETTERS
+    public long getCapacity() { return capacity; }
+}
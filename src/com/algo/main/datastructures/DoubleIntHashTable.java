@@ -0,0 +1,75 @@
+package com.algo.main.datastructures;
+
+/**
+ * Hash table with primitive double keys and int values. The keys are stored as their bits
+ * in a long hash table, so it can be kept in memory or on the disk. Keys are equal when
+ * Double.equals says so (all NaNs are the same key, 0.0 and -0.0 are different keys)
+ */
+@SuppressWarnings("unused")
+public class DoubleIntHashTable {
+
+    // table storing the bits of the keys
+    private LongHashTable table;
+
+    /**
+     * Class constructor
+     *
+     * @param table empty table used to store the elements
+     */
+    public DoubleIntHashTable(LongHashTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Inserts a new element or updates the existing one
+     *
+     * @param key key of the element
+     * @param value value of the element
+     */
+    public void put(double key, int value) {
+        table.put(Double.doubleToLongBits(key), value);
+    }
+
+    /**
+     * Gets an element from the hash table
+     *
+     * @param key key of the element
+     * @param defaultValue value returned if the key doesn't exist
+     * @return value of the element with the specified key, defaultValue if the key doesn't exist
+     */
+    public int get(double key, int defaultValue) {
+        return (int) table.get(Double.doubleToLongBits(key), defaultValue);
+    }
+
+    /**
+     * Checks if the hash table has an element with the specified key
+     *
+     * @param key key of the element
+     * @return true if the key exists
+     */
+    public boolean containsKey(double key) {
+        return table.containsKey(Double.doubleToLongBits(key));
+    }
+
+    /**
+     * Removes an element from the hash table
+     *
+     * @param key key of the element
+     * @return true if the element was removed, false if the key doesn't exist
+     */
+    public boolean remove(double key) {
+        return table.remove(Double.doubleToLongBits(key));
+    }
+
+    /**
+     * Returns the number of elements in the hash table
+     *
+     * @return
+     */
+    public int elementCount() {
+        return table.elementCount();
+    }
+
+    // GETTERS
+    public LongHashTable getTable() { return table; }
+}
@@ -0,0 +1,18 @@
+package com.algo.main.datastructures;
+
+/**
+ * How safely a disk data structure keeps it's changes when the program or the machine crashes
+ */
+public enum Durability {
+
+    // changes are not logged, a crash can lose or break everything written since the last flush
+    NONE,
+
+    // changes are logged and a background thread syncs the log to the disk every few milliseconds,
+    // a crash loses at most the changes of the last interval (also when the table is idle)
+    PERIODIC,
+
+    // the log is synced after every operation (or every batch of operations), a crash loses nothing
+    // that was already returned to the caller
+    BATCH
+}
@@ -0,0 +1,16 @@
+package com.algo.main.datastructures;
+
+/**
+ * Function computing the hash code of a key. A hash table reduces the code to a slot index,
+ * so the function decides how evenly the keys are spread over the slots
+ */
+public interface HashFunction {
+
+    /**
+     * Computes the hash code of a key
+     *
+     * @param key key to hash
+     * @return hash code (any int, including negative values)
+     */
+    int hash(String key);
+}
@@ -0,0 +1,74 @@
+package com.algo.main.datastructures;
+
+/**
+ * Hash table with primitive long keys and double values. The values are stored as their bits
+ * in a long hash table, so it can be kept in memory or on the disk
+ */
+@SuppressWarnings("unused")
+public class LongDoubleHashTable {
+
+    // table storing the bits of the values
+    private LongHashTable table;
+
+    /**
+     * Class constructor
+     *
+     * @param table empty table used to store the elements
+     */
+    public LongDoubleHashTable(LongHashTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Inserts a new element or updates the existing one
+     *
+     * @param key key of the element
+     * @param value value of the element
+     */
+    public void put(long key, double value) {
+        table.put(key, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Gets an element from the hash table
+     *
+     * @param key key of the element
+     * @param defaultValue value returned if the key doesn't exist
+     * @return value of the element with the specified key, defaultValue if the key doesn't exist
+     */
+    public double get(long key, double defaultValue) {
+        return Double.longBitsToDouble(table.get(key, Double.doubleToRawLongBits(defaultValue)));
+    }
+
+    /**
+     * Checks if the hash table has an element with the specified key
+     *
+     * @param key key of the element
+     * @return true if the key exists
+     */
+    public boolean containsKey(long key) {
+        return table.containsKey(key);
+    }
+
+    /**
+     * Removes an element from the hash table
+     *
+     * @param key key of the element
+     * @return true if the element was removed, false if the key doesn't exist
+     */
+    public boolean remove(long key) {
+        return table.remove(key);
+    }
+
+    /**
+     * Returns the number of elements in the hash table
+     *
+     * @return
+     */
+    public int elementCount() {
+        return table.elementCount();
+    }
+
+    // GETTERS
+    public LongHashTable getTable() { return table; }
+}
@@ -0,0 +1,46 @@
+package com.algo.main.datastructures;
+
+/**
+ * Hash table with primitive long keys and values (no boxing or per-element objects)
+ */
+public interface LongHashTable {
+
+    /**
+     * Inserts a new element or updates the existing one
+     *
+     * @param key key of the element
+     * @param value value of the element
+     */
+    void put(long key, long value);
+
+    /**
+     * Gets an element from the hash table
+     *
+     * @param key key of the element
+     * @param defaultValue value returned if the key doesn't exist
+     * @return value of the element with the specified key, defaultValue if the key doesn't exist
+     */
+    long get(long key, long defaultValue);
+
+    /**
+     * Checks if the hash table has an element with the specified key
+     *
+     * @param key key of the element
+     * @return true if the key exists
+     */
+    boolean containsKey(long key);
+
+    /**
+     * Removes an element from the hash table
+     *
+     * @param key key of the element
+     * @return true if the element was removed, false if the key doesn't exist
+     */
+    boolean remove(long key);
+
+    /**
+     * Returns the number of elements in the hash table
+     * @return
+     */
+    int elementCount();
+}
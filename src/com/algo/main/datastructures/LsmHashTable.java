@@ -0,0 +1,994 @@
+package com.algo.main.datastructures;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Key-value store built as a log-structured merge tree. Writes go to a sorted in-memory table (memtable),
+ * a full memtable is written to the disk as an immutable sorted run with a single sequential write,
+ * so no write ever updates the disk in place.
+ *
+ * A lookup checks the memtable and then the runs from the newest to the oldest. Every run has a Bloom filter,
+ * so runs without the key are usually skipped, and a sparse index (first key of every page), so a run
+ * with the key is searched by reading a single page.
+ *
+ * Runs of similar size are merged into one bigger run by a background thread (size-tiered compaction),
+ * which keeps the number of runs a lookup has to check low. If the writes are faster than the compaction,
+ * the writes wait for it
+ *
+ * An element is stored in a single run page, so it's key and value together can take at most
+ * MAX_ELEMENT_LENGTH (4089) bytes of UTF-8. Longer elements are rejected with an IllegalArgumentException,
+ * unlike DiskHashTable, which moves long values to overflow pages
+ */
+@SuppressWarnings("unused")
+public class LsmHashTable implements DataHashTable {
+
+    /**
+     * IMPORTANT
+     *
+     * A run file is a sequence of pages, records never cross page boundaries.
+     *
+     * Page layout:
+     *   short number of records
+     *   records sorted by key: byte type (value or tombstone), short key length, short value length,
+     *   key bytes, value bytes (UTF-8)
+     */
+
+    // number of bytes in a single page of a run file
+    private static final int PAGE_SIZE = 4096;
+
+    // page header and record layout
+    private static final int PAGE_HEADER_LENGTH = 2;
+    private static final int RECORD_HEADER_LENGTH = 5;
+
+    // maximum number of key and value bytes of an element (a record must fit into a page)
+    public static final int MAX_ELEMENT_LENGTH = PAGE_SIZE - PAGE_HEADER_LENGTH - RECORD_HEADER_LENGTH;
+
+    // record types
+    private static final byte VALUE = 0;
+    private static final byte TOMBSTONE = 1;
+
+    // default number of bytes the memtable can occupy before it's written to a run
+    private static final long DEFAULT_MEMTABLE_SIZE = 4 * 1024 * 1024;
+
+    // estimated memory used by a memtable entry besides the key and value characters
+    private static final int ENTRY_OVERHEAD = 64;
+
+    // number of runs merged by a single compaction
+    private static final int MERGE_WIDTH = 4;
+
+    // number of runs at which writes wait for the compaction
+    private static final int MAX_RUNS = 16;
+
+    // page cache budget of a single run
+    private static final long RUN_CACHE_SIZE = 4 * 1024 * 1024;
+
+    // false positive rate of the runs' Bloom filters
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    // number of pages read or written with a single call when a run is read or written sequentially
+    private static final int IO_PAGES = 64;
+
+    // value of a removed key in the memtable (compared by reference, so no real value is mistaken for it)
+    private static final String DELETED = new String("");
+
+    // prefix of the run file names
+    private String fileName;
+
+    // newest changes, removed keys have the DELETED value
+    private TreeMap<String, String> memtable = new TreeMap<>();
+
+    // estimated number of bytes the memtable occupies
+    private long memtableBytes;
+
+    // number of bytes the memtable can occupy
+    private long memtableSize;
+
+    // runs from the newest to the oldest, the list is replaced instead of modified
+    private volatile List<Run> runs = new ArrayList<>();
+
+    // runs replaced by a compaction, they are closed and deleted by the table's thread
+    private ConcurrentLinkedQueue<Run> retired = new ConcurrentLinkedQueue<>();
+
+    // number of the next run file
+    private AtomicInteger nextRun = new AtomicInteger();
+
+    // thread merging the runs
+    private ExecutorService compactor;
+
+    // compaction in progress, null if none was started
+    private Future<?> compaction;
+
+    // number of memtables written to the disk
+    private int flushes;
+
+    // number of finished compactions
+    private AtomicInteger compactions = new AtomicInteger();
+
+    // number of elements, -1 if it needs to be counted again
+    private int elements;
+
+    /**
+     * Class constructor
+     *
+     * @param fileName prefix of the run file names
+     */
+    public LsmHashTable(String fileName) {
+        this(fileName, DEFAULT_MEMTABLE_SIZE);
+    }
+
+    /**
+     * Class constructor, creates a new store (run files left by an older store with the same name are deleted)
+     *
+     * @param fileName prefix of the run file names
+     * @param memtableSize number of bytes the memtable can occupy before it's written to the disk
+     */
+    public LsmHashTable(String fileName, long memtableSize) {
+        if (memtableSize < PAGE_SIZE) {
+            throw new IllegalArgumentException("Memtable must be at least " + PAGE_SIZE + " bytes");
+        }
+
+        this.fileName = fileName;
+        this.memtableSize = memtableSize;
+
+        File prefix = new File(fileName).getAbsoluteFile();
+        File[] oldRuns = prefix.getParentFile().listFiles((dir, name) -> name.startsWith(prefix.getName() + ".run"));
+
+        if (oldRuns != null) {
+            for (File file: oldRuns) {
+                file.delete();
+            }
+        }
+
+        compactor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "lsm-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Inserts a new element or updates the existing one
+     *
+     * @param key   key of the element
+     * @param value value of the element
+     * @return put value
+     */
+    @Override
+    public String put(String key, String value) {
+        write(key, value);
+
+        return value;
+    }
+
+    /**
+     * Inserts new elements or updates the existing ones
+     *
+     * @param keys keys of the elements
+     * @param values values of the elements (values[i] is the value of keys[i])
+     */
+    @Override
+    public void putAll(String[] keys, String[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("There must be a value for every key");
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            write(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * Removes an element. The key is marked as removed, the element leaves the disk when the runs are merged
+     *
+     * @param key key of the element
+     * @return removed value, null if the key doesn't exist
+     */
+    public String remove(String key) {
+        String value = get(key);
+
+        if (value != null) {
+            write(key, DELETED);
+        }
+
+        return value;
+    }
+
+    /**
+     * Writes a change to the memtable, the memtable is written to the disk when it's full
+     *
+     * @param key key of the element
+     * @param value new value, DELETED if the element is removed
+     */
+    private void write(String key, String value) {
+        if (utf8Length(key) + utf8Length(value) > MAX_ELEMENT_LENGTH) {
+            throw new IllegalArgumentException("Element is longer than " + MAX_ELEMENT_LENGTH + " bytes");
+        }
+
+        closeRetiredRuns();
+
+        String old = memtable.put(key, value);
+
+        memtableBytes += (long) value.length() * 2;
+
+        if (old == null) {
+            memtableBytes += (long) key.length() * 2 + ENTRY_OVERHEAD;
+        } else {
+            memtableBytes -= (long) old.length() * 2;
+        }
+
+        elements = -1;
+
+        if (memtableBytes >= memtableSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Gets an element from the store
+     *
+     * @param key key value of the element
+     * @return value of the element with the specified key, null if the key doesn't exist
+     */
+    @Override
+    public String get(String key) {
+        closeRetiredRuns();
+
+        String value = memtable.get(key);
+
+        if (value == null) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+            for (Run run: runs) {
+                if ((value = run.get(key, keyBytes)) != null) {
+                    break;
+                }
+            }
+        }
+
+        return value == DELETED ? null : value;
+    }
+
+    /**
+     * Gets many elements from the store at once
+     *
+     * @param keys key values of the elements
+     * @return values of the elements in the same order as the keys, null for the keys that don't exist
+     */
+    @Override
+    public String[] getAll(String[] keys) {
+        String[] values = new String[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = get(keys[i]);
+        }
+
+        return values;
+    }
+
+    /**
+     * Writes the memtable to a new run and starts a compaction if there are runs to merge
+     */
+    public void flush() {
+        if (memtable.isEmpty()) {
+            return;
+        }
+
+        Run run = writeRun(new MemtableSource(memtable), memtable.size(), false);
+
+        synchronized (this) {
+            List<Run> newRuns = new ArrayList<>(runs.size() + 1);
+
+            newRuns.add(run);
+            newRuns.addAll(runs);
+
+            runs = newRuns;
+        }
+
+        memtable = new TreeMap<>();
+        memtableBytes = 0;
+        flushes++;
+
+        compact();
+    }
+
+    /**
+     * Starts merging the runs in the background if some runs have a similar size and no compaction
+     * is running. Waits for the running compaction if there are too many runs
+     */
+    private void compact() {
+        if (compaction != null && !compaction.isDone()) {
+            if (runs.size() < MAX_RUNS) {
+                return;
+            }
+
+            // the writes are faster than the compaction, lookups would get slower and slower
+            waitForCompaction();
+        }
+
+        List<Run> current = runs;
+        int start = selectRuns(current);
+
+        if (start == -1) {
+            return;
+        }
+
+        List<Run> merged = new ArrayList<>(current.subList(start, start + MERGE_WIDTH));
+
+        // nothing older than the oldest run can have the removed keys, so tombstones aren't needed anymore
+        boolean dropTombstones = start + MERGE_WIDTH == current.size();
+
+        compaction = compactor.submit(() -> merge(merged, dropTombstones));
+    }
+
+    /**
+     * Selects the runs to merge. Only neighbouring runs can be merged, otherwise an older value
+     * could end up in front of a newer one. Oldest runs are merged first
+     *
+     * @param current runs from the newest to the oldest
+     * @return index of the first of MERGE_WIDTH runs to merge, -1 if nothing needs merging
+     */
+    private static int selectRuns(List<Run> current) {
+        int smallest = -1;
+        long smallestSize = Long.MAX_VALUE;
+
+        for (int start = current.size() - MERGE_WIDTH; start >= 0; start--) {
+            long min = Long.MAX_VALUE;
+            long max = 0;
+            long total = 0;
+
+            for (int i = start; i < start + MERGE_WIDTH; i++) {
+                long pages = current.get(i).pageCount;
+
+                min = Math.min(min, pages);
+                max = Math.max(max, pages);
+                total += pages;
+            }
+
+            // runs of a similar size are merged, so every record is rewritten only a few times
+            if (max <= min * 2) {
+                return start;
+            }
+
+            if (total < smallestSize) {
+                smallestSize = total;
+                smallest = start;
+            }
+        }
+
+        // there are too many runs of different sizes, the cheapest ones to merge are merged
+        return current.size() >= MAX_RUNS ? smallest : -1;
+    }
+
+    /**
+     * Merges neighbouring runs into a single run and puts it in their place (runs on the compaction thread)
+     *
+     * @param merged runs to merge, from the newest to the oldest
+     * @param dropTombstones whether removed keys are left out
+     */
+    private void merge(List<Run> merged, boolean dropTombstones) {
+        List<Source> sources = new ArrayList<>();
+        long entries = 0;
+
+        try {
+            for (Run run: merged) {
+                sources.add(new RunSource(run.fileName));
+                entries += run.entries;
+            }
+
+            Run run = writeRun(new MergeSource(sources), entries, dropTombstones);
+
+            synchronized (this) {
+                List<Run> newRuns = new ArrayList<>(runs);
+
+                int index = newRuns.indexOf(merged.get(0));
+
+                newRuns.subList(index, index + merged.size()).clear();
+                newRuns.add(index, run);
+
+                runs = newRuns;
+            }
+
+            retired.addAll(merged);
+            compactions.incrementAndGet();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        } finally {
+            for (Source source: sources) {
+                source.close();
+            }
+        }
+    }
+
+    /**
+     * Waits until the running compaction is finished
+     */
+    private void waitForCompaction() {
+        if (compaction == null) {
+            return;
+        }
+
+        try {
+            compaction.get();
+        } catch (InterruptedException | ExecutionException ex) {
+            ex.printStackTrace();
+        }
+
+        closeRetiredRuns();
+    }
+
+    /**
+     * Closes and deletes the runs replaced by compactions. Called by the table's thread,
+     * so a run is never closed in the middle of a lookup
+     */
+    private void closeRetiredRuns() {
+        Run run;
+
+        while ((run = retired.poll()) != null) {
+            run.close();
+
+            new File(run.fileName).delete();
+        }
+    }
+
+    /**
+     * Writes sorted records to a new run file with large sequential writes
+     *
+     * @param source sorted records
+     * @param expectedEntries number of records the Bloom filter is sized for
+     * @param dropTombstones whether removed keys are left out
+     * @return opened run
+     */
+    private Run writeRun(Source source, long expectedEntries, boolean dropTombstones) {
+        String runFile = fileName + ".run" + nextRun.getAndIncrement();
+
+        BloomFilter filter = new BloomFilter((int) Math.max(1024, Math.min(Integer.MAX_VALUE, expectedEntries)), FALSE_POSITIVE_RATE);
+        List<String> firstKeys = new ArrayList<>();
+        long entries = 0;
+
+        try (RandomAccessFile file = new RandomAccessFile(runFile, "rw")) {
+            FileChannel channel = file.getChannel();
+
+            file.setLength(0);
+
+            ByteBuffer output = ByteBuffer.allocate(IO_PAGES * PAGE_SIZE);
+            ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+
+            int count = 0;
+            page.position(PAGE_HEADER_LENGTH);
+
+            while (source.next()) {
+                if (dropTombstones && source.value() == DELETED) {
+                    continue;
+                }
+
+                byte[] key = source.key().getBytes(StandardCharsets.UTF_8);
+                byte[] value = source.value().getBytes(StandardCharsets.UTF_8);
+
+                if (page.remaining() < RECORD_HEADER_LENGTH + key.length + value.length) {
+                    page.putShort(0, (short) count);
+                    appendPage(channel, output, page);
+
+                    count = 0;
+                    page.clear();
+                    page.position(PAGE_HEADER_LENGTH);
+                }
+
+                if (count == 0) {
+                    firstKeys.add(source.key());
+                }
+
+                page.put(source.value() == DELETED ? TOMBSTONE : VALUE);
+                page.putShort((short) key.length);
+                page.putShort((short) value.length);
+                page.put(key);
+                page.put(value);
+
+                count++;
+                entries++;
+
+                filter.add(source.key());
+            }
+
+            if (count > 0) {
+                page.putShort(0, (short) count);
+                appendPage(channel, output, page);
+            }
+
+            output.flip();
+
+            while (output.hasRemaining()) {
+                channel.write(output);
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+
+        return new Run(runFile, firstKeys.toArray(new String[0]), filter, entries);
+    }
+
+    /**
+     * Adds a page to the output buffer, the buffer is written to the file when it's full
+     *
+     * @param channel file to write to
+     * @param output output buffer
+     * @param page complete page
+     * @throws IOException if the file can't be written
+     */
+    private static void appendPage(FileChannel channel, ByteBuffer output, ByteBuffer page) throws IOException {
+        if (!output.hasRemaining()) {
+            output.flip();
+
+            while (output.hasRemaining()) {
+                channel.write(output);
+            }
+
+            output.clear();
+        }
+
+        page.clear();
+        output.put(page);
+    }
+
+    /**
+     * Gets the number of bytes a string takes in UTF-8
+     *
+     * @param string string to measure
+     * @return number of bytes
+     */
+    private static int utf8Length(String string) {
+        int length = string.length();
+
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+
+            // surrogate pairs take 4 bytes, 2 for each char
+            if (c >= 0x800) {
+                length += Character.isSurrogate(c) ? 1 : 2;
+            } else if (c >= 0x80) {
+                length++;
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Returns the number of elements in the store. Runs can have old values and removed keys,
+     * so all keys are merged and counted (the count is kept until the store is changed)
+     *
+     * @return
+     */
+    @Override
+    public int elementCount() {
+        if (elements != -1) {
+            return elements;
+        }
+
+        List<Source> sources = new ArrayList<>();
+        int count = 0;
+
+        try {
+            sources.add(new MemtableSource(memtable));
+
+            for (Run run: runs) {
+                sources.add(new RunSource(run.fileName));
+            }
+
+            MergeSource merged = new MergeSource(sources);
+
+            while (merged.next()) {
+                if (merged.value() != DELETED) {
+                    count++;
+                }
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        } finally {
+            for (Source source: sources) {
+                source.close();
+            }
+        }
+
+        elements = count;
+
+        return count;
+    }
+
+    /**
+     * Returns the number of sorted runs a lookup may have to search (the store has no chains)
+     *
+     * @return
+     */
+    @Override
+    public int chainCount() {
+        return runs.size();
+    }
+
+    /**
+     * Returns the hash code of the key. The store is ordered by keys instead of hashing them,
+     * the code only decides which bits of the Bloom filters are used
+     *
+     * @param key key to hash
+     * @return hash function value
+     */
+    @Override
+    public int hash(String key) {
+        return key.hashCode() & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Writes the memtable to the disk, waits for the compactions and closes the run files.
+     * The store can't be used afterwards
+     */
+    public void close() {
+        flush();
+        waitForCompaction();
+
+        compactor.shutdown();
+
+        for (Run run: runs) {
+            run.close();
+        }
+    }
+
+    // GETTERS
+    public int getRunCount() { return runs.size(); }
+    public int getFlushes() { return flushes; }
+    public int getCompactions() { return compactions.get(); }
+    public int getMemtableSize() { return memtable.size(); }
+
+    /**
+     * Immutable sorted file of records
+     */
+    private static class Run {
+
+        // file of the run
+        private String fileName;
+
+        // opened file and it's pages
+        private RandomAccessFile file;
+        private PageCache cache;
+
+        // first key of every page
+        private String[] firstKeys;
+
+        // filter of the run's keys
+        private BloomFilter filter;
+
+        // number of pages and records in the run
+        private int pageCount;
+        private long entries;
+
+        private Run(String fileName, String[] firstKeys, BloomFilter filter, long entries) {
+            this.fileName = fileName;
+            this.firstKeys = firstKeys;
+            this.filter = filter;
+            this.pageCount = firstKeys.length;
+            this.entries = entries;
+
+            try {
+                file = new RandomAccessFile(fileName, "r");
+                cache = new PageCache(file.getChannel(), PAGE_SIZE, RUN_CACHE_SIZE);
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+
+        /**
+         * Finds the value of a key in the run
+         *
+         * @param key key to look for
+         * @param keyBytes UTF-8 bytes of the key
+         * @return value, DELETED if the key was removed, null if the run doesn't have the key
+         */
+        private String get(String key, byte[] keyBytes) {
+            if (!filter.mightContain(key)) {
+                return null;
+            }
+
+            // the last page starting with a key that is not greater than the searched key
+            int low = 0;
+            int high = firstKeys.length - 1;
+            int pageNumber = -1;
+
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+
+                if (firstKeys[middle].compareTo(key) <= 0) {
+                    pageNumber = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            if (pageNumber == -1) {
+                return null;
+            }
+
+            ByteBuffer page = cache.readPage(pageNumber);
+
+            int count = page.getShort(0);
+            int offset = PAGE_HEADER_LENGTH;
+
+            // the key bytes are compared instead of decoding every key of the page
+            for (int i = 0; i < count; i++) {
+                int keyLength = page.getShort(offset + 1);
+                int valueLength = page.getShort(offset + 3);
+
+                if (keyLength == keyBytes.length && Arrays.equals(page.array(), offset + RECORD_HEADER_LENGTH,
+                        offset + RECORD_HEADER_LENGTH + keyLength, keyBytes, 0, keyLength)) {
+                    if (page.get(offset) == TOMBSTONE) {
+                        return DELETED;
+                    }
+
+                    return new String(page.array(), offset + RECORD_HEADER_LENGTH + keyLength, valueLength, StandardCharsets.UTF_8);
+                }
+
+                offset += RECORD_HEADER_LENGTH + keyLength + valueLength;
+            }
+
+            return null;
+        }
+
+        /**
+         * Closes the run's file
+         */
+        private void close() {
+            try {
+                file.close();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Sorted sequence of records
+     */
+    private static abstract class Source {
+
+        /**
+         * Moves to the next record
+         *
+         * @return false if there are no more records
+         * @throws IOException if the records can't be read
+         */
+        abstract boolean next() throws IOException;
+
+        /**
+         * Gets the key of the current record
+         *
+         * @return key
+         */
+        abstract String key();
+
+        /**
+         * Gets the value of the current record
+         *
+         * @return value, DELETED if the key was removed
+         */
+        abstract String value();
+
+        /**
+         * Releases the resources of the source
+         */
+        void close() {
+        }
+    }
+
+    /**
+     * Records of a memtable
+     */
+    private static class MemtableSource extends Source {
+
+        private Iterator<Map.Entry<String, String>> iterator;
+        private Map.Entry<String, String> current;
+
+        private MemtableSource(TreeMap<String, String> memtable) {
+            iterator = memtable.entrySet().iterator();
+        }
+
+        @Override
+        boolean next() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+
+            current = iterator.next();
+
+            return true;
+        }
+
+        @Override
+        String key() {
+            return current.getKey();
+        }
+
+        @Override
+        String value() {
+            return current.getValue();
+        }
+    }
+
+    /**
+     * Records of a run file read sequentially with it's own file handle (bypassing the run's page cache,
+     * so the compaction thread doesn't share it with lookups)
+     */
+    private static class RunSource extends Source {
+
+        private RandomAccessFile file;
+        private ByteBuffer buffer = ByteBuffer.allocate(IO_PAGES * PAGE_SIZE);
+
+        // position of the current page in the buffer and it's remaining records
+        private int pageStart;
+        private int remaining;
+        private int offset;
+
+        private String key;
+        private String value;
+
+        private RunSource(String fileName) throws IOException {
+            file = new RandomAccessFile(fileName, "r");
+
+            buffer.limit(0);
+            pageStart = -PAGE_SIZE;
+        }
+
+        @Override
+        boolean next() throws IOException {
+            while (remaining == 0) {
+                pageStart += PAGE_SIZE;
+
+                if (pageStart >= buffer.limit()) {
+                    buffer.clear();
+
+                    int read;
+
+                    while (buffer.hasRemaining() && (read = file.getChannel().read(buffer)) != -1) {
+                        if (read == 0) {
+                            break;
+                        }
+                    }
+
+                    buffer.flip();
+                    pageStart = 0;
+
+                    if (buffer.limit() < PAGE_SIZE) {
+                        return false;
+                    }
+                }
+
+                remaining = buffer.getShort(pageStart);
+                offset = pageStart + PAGE_HEADER_LENGTH;
+            }
+
+            int keyLength = buffer.getShort(offset + 1);
+            int valueLength = buffer.getShort(offset + 3);
+
+            key = new String(buffer.array(), offset + RECORD_HEADER_LENGTH, keyLength, StandardCharsets.UTF_8);
+            value = buffer.get(offset) == TOMBSTONE ? DELETED
+                    : new String(buffer.array(), offset + RECORD_HEADER_LENGTH + keyLength, valueLength, StandardCharsets.UTF_8);
+
+            offset += RECORD_HEADER_LENGTH + keyLength + valueLength;
+            remaining--;
+
+            return true;
+        }
+
+        @Override
+        String key() {
+            return key;
+        }
+
+        @Override
+        String value() {
+            return value;
+        }
+
+        @Override
+        void close() {
+            try {
+                file.close();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Merges sorted sources into one, when many sources have the same key the newest source wins
+     */
+    private static class MergeSource extends Source {
+
+        // sources that have a current record, ordered by key and then by age (newest first)
+        private PriorityQueue<int[]> heap;
+        private List<Source> sources;
+
+        private String key;
+        private String value;
+
+        /**
+         * Class constructor
+         *
+         * @param sources sources from the newest to the oldest
+         * @throws IOException if a source can't be read
+         */
+        private MergeSource(List<Source> sources) throws IOException {
+            this.sources = sources;
+
+            heap = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> {
+                int comparison = sources.get(a[0]).key().compareTo(sources.get(b[0]).key());
+
+                return comparison != 0 ? comparison : Integer.compare(a[0], b[0]);
+            });
+
+            for (int i = 0; i < sources.size(); i++) {
+                if (sources.get(i).next()) {
+                    heap.add(new int[] {i});
+                }
+            }
+        }
+
+        @Override
+        boolean next() throws IOException {
+            if (heap.isEmpty()) {
+                return false;
+            }
+
+            int[] newest = heap.poll();
+
+            key = sources.get(newest[0]).key();
+            value = sources.get(newest[0]).value();
+
+            advance(newest);
+
+            // older records of the same key are skipped
+            while (!heap.isEmpty() && sources.get(heap.peek()[0]).key().equals(key)) {
+                advance(heap.poll());
+            }
+
+            return true;
+        }
+
+        /**
+         * Moves a source to it's next record and puts it back into the heap if it has one
+         *
+         * @param entry heap entry of the source
+         * @throws IOException if the source can't be read
+         */
+        private void advance(int[] entry) throws IOException {
+            if (sources.get(entry[0]).next()) {
+                heap.add(entry);
+            }
+        }
+
+        @Override
+        String key() {
+            return key;
+        }
+
+        @Override
+        String value() {
+            return value;
+        }
+    }
+}
@@ -3,11 +3,15 @@ package com.algo.main.datastructures;
 import java.util.Random;
 
 /**
- * Array that stores elements in RAM
+ * Array that stores elements in RAM. Indexes are 64-bit to match the DataArray interface,
+ * but a Java array can't hold more than about 2^31 elements
  */
 @SuppressWarnings("unused")
 public class MemoryArray implements DataArray, Printable {
 
+    // maximum number of elements a Java array can hold
+    private static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+
     // array data
     private double[] data;
 
@@ -17,8 +21,8 @@ public class MemoryArray implements DataArray, Printable {
      * @param seed seed used to generate the data
      * @param length number of elements
      */
-    public void generateData(int seed, int length) {
-        data = new double[length];
+    public void generateData(int seed, long length) {
+        setLength(length);
 
         Random random = new Random(seed);
 
@@ -33,8 +37,12 @@ public class MemoryArray implements DataArray, Printable {
      * @param length
      */
     @Override
-    public void setLength(int length) {
-        data = new double[length];
+    public void setLength(long length) {
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("MemoryArray can't hold " + length + " elements");
+        }
+
+        data = new double[(int) length];
     }
 
     /**
@@ -43,8 +51,8 @@ public class MemoryArray implements DataArray, Printable {
      * @param index index of the element
      */
     @Override
-    public double get(int index) {
-        return data[index];
+    public double get(long index) {
+        return data[index(index)];
     }
 
     /**
@@ -54,12 +62,8 @@ public class MemoryArray implements DataArray, Printable {
      * @param value new value
      */
     @Override
-    public void set(int index, double value) {
-        if (index < 0 || index >= data.length) {
-            throw new IllegalArgumentException("DataArray index out of bounds");
-        }
-
-        data[index] = value;
+    public void set(long index, double value) {
+        data[index(index)] = value;
     }
 
     /**
@@ -67,7 +71,7 @@ public class MemoryArray implements DataArray, Printable {
      * @return length of the array
      */
     @Override
-    public int length() {
+    public long length() {
         return data.length;
     }
 
@@ -78,10 +82,100 @@ public class MemoryArray implements DataArray, Printable {
      * @param b index of the second element
      */
     @Override
-    public void swap(int a, int b) {
-        double temp = data[a];
-        data[a] = data[b];
-        data[b] = temp;
+    public void swap(long a, long b) {
+        int i = index(a);
+        int j = index(b);
+
+        double temp = data[i];
+        data[i] = data[j];
+        data[j] = temp;
+    }
+
+    /**
+     * Gets the inner array (used by sorting algorithms that work on the data directly)
+     *
+     * @return array data
+     */
+    public double[] getData() {
+        return data;
+    }
+
+    /**
+     * Converts a 64-bit index into an index of the inner array
+     *
+     * @param index index of the element
+     * @return inner array index
+     */
+    private int index(long index) {
+        if (index < 0 || index >= data.length) {
+            throw new IllegalArgumentException("DataArray index out of bounds");
+        }
+
+        return (int) index;
+    }
+
+    /**
+     * Reads a range of elements into a buffer
+     *
+     * @param from index of the first element to read
+     * @param buffer buffer to read into
+     * @param offset starting position in the buffer
+     * @param length number of elements to read
+     */
+    @Override
+    public void read(long from, double[] buffer, int offset, int length) {
+        checkRange(from, length);
+
+        System.arraycopy(data, (int) from, buffer, offset, length);
+    }
+
+    /**
+     * Writes elements from a buffer into a range of the array
+     *
+     * @param from index of the first element to write
+     * @param buffer buffer with the new values
+     * @param offset starting position in the buffer
+     * @param length number of elements to write
+     */
+    @Override
+    public void write(long from, double[] buffer, int offset, int length) {
+        checkRange(from, length);
+
+        System.arraycopy(buffer, offset, data, (int) from, length);
+    }
+
+    /**
+     * Copies a range of elements into another array
+     *
+     * @param from index of the first element to copy
+     * @param target array to copy into (can be this array)
+     * @param to index of the first element in the target array
+     * @param length number of elements to copy
+     */
+    @Override
+    public void copy(long from, DataArray target, long to, long length) {
+        checkRange(from, length);
+
+        if (target instanceof MemoryArray) {
+            MemoryArray array = (MemoryArray) target;
+            array.checkRange(to, length);
+
+            System.arraycopy(data, (int) from, array.data, (int) to, (int) length);
+        } else {
+            target.write(to, data, (int) from, (int) length);
+        }
+    }
+
+    /**
+     * Checks if a range of elements is inside the array
+     *
+     * @param from index of the first element
+     * @param length number of elements
+     */
+    private void checkRange(long from, long length) {
+        if (from < 0 || length < 0 || from + length > data.length) {
+            throw new IllegalArgumentException("DataArray index out of bounds");
+        }
     }
 
     /**
@@ -101,12 +195,12 @@ public class MemoryArray implements DataArray, Printable {
      * @param length how many elements to print
      */
     @Override
-    public void print(int from, int length) {
+    public void print(long from, long length) {
         if (from < 0 || from + length > data.length || length <= 0) {
             throw new IllegalArgumentException("Invalid starting index and/or length");
         }
 
-        for (int i = from; i < from + length; i++) {
+        for (int i = (int) from; i < from + length; i++) {
             System.out.printf("%.3f\n", data[i]);
         }
     }
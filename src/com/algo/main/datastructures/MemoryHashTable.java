@@ -4,7 +4,13 @@ import java.util.Arrays;
 import java.util.stream.Stream;
 
 /**
- * HashTable with it's elements stored in RAM. Uses chaining as collision resolution strategy
+ * HashTable with it's elements stored in RAM. Uses chaining as collision resolution strategy.
+ * The table is resized incrementally: the old and the new slot arrays are kept side by side
+ * and every operation moves a few old slots to the new array, so no single put has to rehash
+ * the whole table.
+ *
+ * The hash function is pluggable. Slot indexes are computed with a modulo, or with a mask if the table
+ * is created with a power-of-two capacity
  */
 @SuppressWarnings("unused")
 public class MemoryHashTable implements DataHashTable {
@@ -12,6 +18,9 @@ public class MemoryHashTable implements DataHashTable {
     // how many of the hash table needs to be filled in order for it to expand
     private static final double loadFactor = 0.75;
 
+    // how many old slots are moved to the new table on each operation while resizing
+    private static final int migrationStep = 8;
+
     // inner hash table
     private Node[] nodes;
 
@@ -21,14 +30,50 @@ public class MemoryHashTable implements DataHashTable {
     // how many elements are in the table
     private int elements;
 
+    // function computing the hash codes of the keys
+    private HashFunction hashFunction;
+
+    // whether the capacity is a power of two, so slot indexes are masked instead of using a modulo
+    private boolean powerOfTwo;
+
+    // slots of the table before resizing, null if the table isn't being resized
+    private Node[] oldNodes;
+
+    // capacity of the old table
+    private int oldCapacity;
+
+    // old slots below this index are already moved to the new table
+    private int migrated;
+
     /**
      * Class constructor
      * @param capacity how many slots does the hash table have initially
      */
     public MemoryHashTable(int capacity) {
-        this.capacity = capacity;
+        this(capacity, StandardHashFunction.MIXED, false);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param capacity how many slots does the hash table have initially
+     * @param hashFunction function computing the hash codes of the keys
+     * @param powerOfTwo whether the capacity is rounded up to a power of two and slot indexes are masked
+     */
+    public MemoryHashTable(int capacity, HashFunction hashFunction, boolean powerOfTwo) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+
+        if (powerOfTwo) {
+            capacity = Integer.highestOneBit(Math.min(capacity, 1 << 30) - 1) << 1;
+        }
 
-        nodes = new Node[capacity];
+        this.capacity = Math.max(1, capacity);
+        this.hashFunction = hashFunction;
+        this.powerOfTwo = powerOfTwo;
+
+        nodes = new Node[this.capacity];
     }
 
     /**
@@ -41,32 +86,85 @@ public class MemoryHashTable implements DataHashTable {
      */
     @Override
     public String put(String key, String value) {
-        int index = hash(key);
+        migrate();
 
-        // node doesn't exist at the key hash (index), create a new one
-        if (nodes[index] == null) {
-            nodes[index] = new Node(null, key, value);
-            elements++;
-            return value;
-        }
+        int code = hashFunction.hash(key);
 
         // if the key already exists get that node and update it's value
-        Node existing = getNodeWithKey(nodes[index], key);
+        Node existing = findNode(key, code);
 
         if (existing != null) {
             existing.value = value;
             return value;
         }
 
-        // resize the hash table if needed
+        // start resizing the hash table if needed
         if (elements > capacity * loadFactor) {
             resize(capacity * 2);
-            return put(key, value);
         }
 
-        // no node was updated, table wasn't resized, but a node at this index already
-        // exists, so create a new node and add it to the chain
-        Node node = new Node(null, key, value);
+        return insertNode(key, value, code);
+    }
+
+    /**
+     * Inserts new elements or updates the existing ones. The table is resized at most once
+     * for the whole batch instead of checking the size for every element
+     *
+     * @param keys keys of the elements
+     * @param values values of the elements (values[i] is the value of keys[i])
+     */
+    @Override
+    public void putAll(String[] keys, String[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("There must be a value for every key");
+        }
+
+        // grow to the final size up front (existing keys are counted too, so the table may end up larger)
+        int newCapacity = capacity;
+
+        while (elements + keys.length > newCapacity * loadFactor) {
+            newCapacity *= 2;
+        }
+
+        if (newCapacity != capacity) {
+            resize(newCapacity);
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            migrate();
+
+            int code = hashFunction.hash(keys[i]);
+
+            Node existing = findNode(keys[i], code);
+
+            if (existing != null) {
+                existing.value = values[i];
+            } else {
+                insertNode(keys[i], values[i], code);
+            }
+        }
+    }
+
+    /**
+     * Inserts an element that is not in the table yet, without checking the size of the table
+     *
+     * @param key key of the element
+     * @param value value of the element
+     * @param code hash code of the key
+     * @return inserted value
+     */
+    private String insertNode(String key, String value, int code) {
+        int index = index(code, capacity);
+
+        // node doesn't exist at the key hash (index), create a new one
+        if (nodes[index] == null) {
+            nodes[index] = new Node(null, key, value, code);
+            elements++;
+            return value;
+        }
+
+        // a node at this index already exists, so create a new node and add it to the chain
+        Node node = new Node(null, key, value, code);
 
         // find the last node in the chain and set it's next node as the new node
         Node last = nodes[index];
@@ -83,35 +181,87 @@ public class MemoryHashTable implements DataHashTable {
     }
 
     /**
-     * Resizes the hash table
+     * Starts resizing the hash table. The slots are moved to the new table by later operations
      */
     private void resize(int newCapacity) {
-        Node[] temp = Arrays.copyOf(nodes, nodes.length);
+        // the previous resize must be finished before the table can grow again
+        while (oldNodes != null) {
+            migrate();
+        }
 
-        nodes = new Node[newCapacity];
+        oldNodes = nodes;
+        oldCapacity = capacity;
+        migrated = 0;
 
-        elements = 0;
+        nodes = new Node[newCapacity];
         capacity = newCapacity;
+    }
 
-        for (Node node: temp) {
-            if (node != null) {
-                do {
-                    put(node.key, node.value);
-                } while ((node = node.next) != null);
+    /**
+     * Moves a few slots of the old table to the new table if the table is being resized
+     */
+    private void migrate() {
+        if (oldNodes == null) {
+            return;
+        }
+
+        int end = Math.min(oldCapacity, migrated + migrationStep);
+
+        for (; migrated < end; migrated++) {
+            Node node = oldNodes[migrated];
+
+            oldNodes[migrated] = null;
+
+            // relink the existing nodes using their cached hash codes, nothing is allocated or hashed again
+            while (node != null) {
+                Node next = node.next;
+                int index = index(node.hash, capacity);
+
+                node.next = nodes[index];
+                nodes[index] = node;
+
+                node = next;
+            }
+        }
+
+        if (migrated == oldCapacity) {
+            oldNodes = null;
+        }
+    }
+
+    /**
+     * Finds the node with the specified key in the new table or in the not yet moved slots of the old table
+     *
+     * @param key key to look for
+     * @param code hash code of the key
+     * @return found node, null if the key doesn't exist
+     */
+    private Node findNode(String key, int code) {
+        Node node = getNodeWithKey(nodes[index(code, capacity)], key, code);
+
+        if (node == null && oldNodes != null) {
+            int oldIndex = index(code, oldCapacity);
+
+            if (oldIndex >= migrated) {
+                node = getNodeWithKey(oldNodes[oldIndex], key, code);
             }
         }
+
+        return node;
     }
 
     /**
      * Gets the chain node with the specified key
      * @param node starting node of the chain
      * @param key key to look for
+     * @param code hash code of the key
      * @return found node, null if the key doesn't exist
      */
-    private Node getNodeWithKey(Node node, String key) {
+    private Node getNodeWithKey(Node node, String key, int code) {
         if (node != null) {
             do {
-                if (node.key.equals(key)) {
+                // keys are only compared when the hash codes match
+                if (node.hash == code && node.key.equals(key)) {
                     return node;
                 }
 
@@ -129,17 +279,32 @@ public class MemoryHashTable implements DataHashTable {
      */
     @Override
     public String get(String key) {
-        int index = hash(key);
+        migrate();
 
-        if (nodes[index] != null) {
-            Node existing = getNodeWithKey(nodes[index], key);
+        Node existing = findNode(key, hashFunction.hash(key));
 
-            if (existing != null) {
-                return existing.value;
-            }
+        return existing != null ? existing.value : null;
+    }
+
+    /**
+     * Gets many elements from the hash table at once
+     *
+     * @param keys key values of the elements
+     * @return values of the elements in the same order as the keys, null for the keys that don't exist
+     */
+    @Override
+    public String[] getAll(String[] keys) {
+        String[] values = new String[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            migrate();
+
+            Node existing = findNode(keys[i], hashFunction.hash(keys[i]));
+
+            values[i] = existing != null ? existing.value : null;
         }
 
-        return null;
+        return values;
     }
 
     /**
@@ -175,7 +340,13 @@ public class MemoryHashTable implements DataHashTable {
      */
     @Override
     public int chainCount() {
-        return (int) Stream.of(nodes).filter(node -> node != null).count();
+        int chains = (int) Stream.of(nodes).filter(node -> node != null).count();
+
+        if (oldNodes != null) {
+            chains += (int) Stream.of(oldNodes).filter(node -> node != null).count();
+        }
+
+        return chains;
     }
 
     /**
@@ -186,10 +357,62 @@ public class MemoryHashTable implements DataHashTable {
      */
     @Override
     public int hash(String key) {
-        int code = key.hashCode();
-        return Math.abs(code) % capacity;
+        return index(hashFunction.hash(key), capacity);
+    }
+
+    /**
+     * Gets the slot index of a hash code
+     *
+     * @param code hash code of a key
+     * @param capacity number of slots
+     * @return slot index
+     */
+    private int index(int code, int capacity) {
+        if (powerOfTwo) {
+            return code & (capacity - 1);
+        }
+
+        // Math.abs would return a negative number for Integer.MIN_VALUE, so the sign bit is cleared instead
+        return (code & Integer.MAX_VALUE) % capacity;
+    }
+
+    /**
+     * Counts the chains of every length. The table is searched element by element,
+     * so the average search goes through about half of an average chain
+     *
+     * @return histogram, element i is the number of slots with a chain of length i (0 is an empty slot)
+     */
+    public int[] chainLengthHistogram() {
+        int[] histogram = new int[1];
+
+        for (Node[] slots: new Node[][] {nodes, oldNodes}) {
+            if (slots == null) {
+                continue;
+            }
+
+            for (int i = 0; i < slots.length; i++) {
+                // the moved slots of the old table are counted in the new table
+                if (slots == oldNodes && i < migrated) {
+                    continue;
+                }
+
+                int length = slots[i] == null ? 0 : chainLength(slots[i]);
+
+                if (length >= histogram.length) {
+                    histogram = Arrays.copyOf(histogram, length + 1);
+                }
+
+                histogram[length]++;
+            }
+        }
+
+        return histogram;
     }
 
+    // GETTERS
+    public int getCapacity() { return capacity; }
+    public HashFunction getHashFunction() { return hashFunction; }
+
     /**
      * Node of the inner hash table's chain
      */
@@ -199,10 +422,14 @@ public class MemoryHashTable implements DataHashTable {
         protected String key;
         protected String value;
 
-        protected Node(Node next, String key, String value) {
+        // hash code of the key, so the node isn't hashed again when the table is resized
+        protected int hash;
+
+        protected Node(Node next, String key, String value, int hash) {
             this.next = next;
             this.key = key;
             this.value = value;
+            this.hash = hash;
         }
     }
 }
@@ -231,12 +231,12 @@ public class MemoryList implements DataList, Printable {
      * @param length how many elements to print
      */
     @Override
-    public void print(int from, int length) {
+    public void print(long from, long length) {
         if (from < 0 || length <= 0 || from + length > this.length) {
             throw new IllegalArgumentException("Invalid starting index and/or length");
         }
 
-        int index = 0;
+        long index = 0;
 
         for (Node node = first; node != null; node = node.next) {
             index++;
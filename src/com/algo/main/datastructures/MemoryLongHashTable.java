@@ -0,0 +1,268 @@
+package com.algo.main.datastructures;
+
+/**
+ * Hash table with primitive long keys and values stored in RAM in two flat arrays. Uses open addressing
+ * with linear probing, removed elements are filled by shifting the following elements back,
+ * so no tombstones are needed
+ */
+@SuppressWarnings("unused")
+public class MemoryLongHashTable implements LongHashTable {
+
+    // how many of the hash table needs to be filled in order for it to expand
+    private static final double loadFactor = 0.75;
+
+    // key of an empty slot, the element with this key is stored outside of the arrays
+    private static final long EMPTY = 0;
+
+    // keys and values of the elements, an element uses the same index in both arrays
+    private long[] keys;
+    private long[] values;
+
+    // number of slots (always a power of two)
+    private int capacity;
+
+    // capacity - 1, used instead of modulo
+    private int mask;
+
+    // how many elements are in the table (including the element with the EMPTY key)
+    private int elements;
+
+    // whether the element with the EMPTY key exists and it's value
+    private boolean hasEmptyKey;
+    private long emptyKeyValue;
+
+    /**
+     * Class constructor
+     * @param capacity how many slots does the hash table have initially (rounded up to a power of two)
+     */
+    public MemoryLongHashTable(int capacity) {
+        allocate(powerOfTwo(capacity));
+    }
+
+    /**
+     * Creates empty slot arrays
+     *
+     * @param capacity number of slots (power of two)
+     */
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+
+        keys = new long[capacity];
+        values = new long[capacity];
+    }
+
+    /**
+     * Gets the smallest power of two that is not less than the given number
+     *
+     * @param number number to round up
+     * @return power of two
+     */
+    private static int powerOfTwo(int number) {
+        int result = 2;
+
+        while (result < number && result < (1 << 30)) {
+            result <<= 1;
+        }
+
+        return result;
+    }
+
+    /**
+     * Inserts a new element or updates the existing one
+     *
+     * @param key key of the element
+     * @param value value of the element
+     */
+    @Override
+    public void put(long key, long value) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                elements++;
+            }
+
+            emptyKeyValue = value;
+            return;
+        }
+
+        int index = slot(key);
+
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+
+        elements++;
+
+        // resize the hash table if needed
+        if (elements > capacity * loadFactor && capacity < (1 << 30)) {
+            resize(capacity * 2);
+        }
+    }
+
+    /**
+     * Gets an element from the hash table
+     *
+     * @param key key of the element
+     * @param defaultValue value returned if the key doesn't exist
+     * @return value of the element with the specified key, defaultValue if the key doesn't exist
+     */
+    @Override
+    public long get(long key, long defaultValue) {
+        if (key == EMPTY) {
+            return hasEmptyKey ? emptyKeyValue : defaultValue;
+        }
+
+        int index = find(key);
+
+        return index == -1 ? defaultValue : values[index];
+    }
+
+    /**
+     * Checks if the hash table has an element with the specified key
+     *
+     * @param key key of the element
+     * @return true if the key exists
+     */
+    @Override
+    public boolean containsKey(long key) {
+        return key == EMPTY ? hasEmptyKey : find(key) != -1;
+    }
+
+    /**
+     * Removes an element from the hash table
+     *
+     * @param key key of the element
+     * @return true if the element was removed, false if the key doesn't exist
+     */
+    @Override
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) {
+                return false;
+            }
+
+            hasEmptyKey = false;
+            elements--;
+
+            return true;
+        }
+
+        int gap = find(key);
+
+        if (gap == -1) {
+            return false;
+        }
+
+        // move back the following elements of the cluster that can't be found past the gap anymore
+        for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+
+                gap = next;
+            }
+        }
+
+        keys[gap] = EMPTY;
+
+        elements--;
+
+        return true;
+    }
+
+    /**
+     * Finds the slot of a key
+     *
+     * @param key key to look for (not EMPTY)
+     * @return slot index, -1 if the key doesn't exist
+     */
+    private int find(long key) {
+        int index = slot(key);
+
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                return index;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Resizes the hash table
+     *
+     * @param newCapacity new number of slots (power of two)
+     */
+    private void resize(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = slot(oldKeys[i]);
+
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the home slot of a key. Neighbouring keys (like sequential IDs) would fill a run of slots
+     * and make long probe sequences, so the key's bits are mixed before masking
+     *
+     * @param key key to hash
+     * @return slot index
+     */
+    private int slot(long key) {
+        return (int) mix(key) & mask;
+    }
+
+    /**
+     * Mixes the bits of a key (finalizer of the 64-bit MurmurHash3)
+     *
+     * @param key key to mix
+     * @return mixed bits
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+
+        return key;
+    }
+
+    /**
+     * Returns the number of elements in the hash table
+     *
+     * @return
+     */
+    @Override
+    public int elementCount() {
+        return elements;
+    }
+
+    // GETTERS
+    public int getCapacity() { return capacity; }
+}
@@ -0,0 +1,307 @@
+package com.algo.main.datastructures;
+
+import com.algo.main.Utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+/**
+ * Array that stores it's elements in RAM outside of the Java heap, so large arrays don't
+ * make garbage collection slower. Memory is allocated in segments, so the array can be
+ * larger than 2 GB, and it has to be freed by calling close().
+ * Direct memory is limited by -XX:MaxDirectMemorySize (by default the maximum heap size)
+ */
+@SuppressWarnings("unused")
+public class OffHeapArray implements DataArray, Printable {
+
+    // number of bytes in a single segment (2^30, always a multiple of the element size,
+    // so an element never spans two segments)
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    // number of bytes a single element occupies
+    private static final int ELEMENT_LENGTH = 8;
+
+    // off-heap memory segments
+    private ByteBuffer[] segments = new ByteBuffer[0];
+
+    // number of elements in the array
+    private long length;
+
+    // reusable buffer for copying between arrays
+    private double[] copyBuffer;
+
+    // maximum number of elements copied at once
+    private static final int COPY_LENGTH = 128 * 1024;
+
+    /**
+     * Sets array length (frees the old memory and allocates new zeroed memory)
+     *
+     * @param length
+     */
+    @Override
+    public void setLength(long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Array length can't be negative");
+        }
+
+        close();
+
+        long size = length * ELEMENT_LENGTH;
+
+        int segmentCount = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+
+        segments = new ByteBuffer[segmentCount];
+
+        for (int i = 0; i < segmentCount; i++) {
+            long position = (long) i << SEGMENT_SHIFT;
+
+            // native byte order, so doubles are copied without swapping bytes
+            segments[i] = ByteBuffer.allocateDirect((int) Math.min(SEGMENT_SIZE, size - position))
+                    .order(ByteOrder.nativeOrder());
+        }
+
+        this.length = length;
+    }
+
+    /**
+     * Generates array data
+     *
+     * @param seed seed used when generating data
+     * @param length number of elements
+     */
+    public void generateData(int seed, long length) {
+        setLength(length);
+
+        Random random = new Random(seed);
+
+        for (long i = 0; i < length; i++) {
+            double element = random.nextDouble() * (1 + random.nextInt(1000));
+
+            writeElement(i, element);
+        }
+    }
+
+    /**
+     * Reads the element at the specified index from the memory segments
+     *
+     * @param index index of the element
+     * @return element at the specified index
+     */
+    private double readElement(long index) {
+        long offset = index * ELEMENT_LENGTH;
+
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getDouble((int) (offset & SEGMENT_MASK));
+    }
+
+    /**
+     * Writes the element at the specified index to the memory segments
+     *
+     * @param index index of the element
+     * @param value new value
+     */
+    private void writeElement(long index, double value) {
+        long offset = index * ELEMENT_LENGTH;
+
+        segments[(int) (offset >>> SEGMENT_SHIFT)].putDouble((int) (offset & SEGMENT_MASK), value);
+    }
+
+    /**
+     * Gets the element at the specified position
+     *
+     * @param index index of the element
+     * @return element at the specified index
+     */
+    @Override
+    public double get(long index) {
+        return readElement(index);
+    }
+
+    /**
+     * Inserts a value into the specified index
+     *
+     * @param index index to put to
+     * @param value new value
+     */
+    @Override
+    public void set(long index, double value) {
+        if (index < 0 || index >= length) {
+            throw new IllegalArgumentException("DataArray index out of bounds");
+        }
+
+        writeElement(index, value);
+    }
+
+    /**
+     * Gets the number of elements in the array
+     *
+     * @return length of the array
+     */
+    @Override
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Swaps two elements
+     *
+     * @param a index of the first element
+     * @param b index of the second element
+     */
+    @Override
+    public void swap(long a, long b) {
+        double temp = readElement(a);
+        writeElement(a, readElement(b));
+        writeElement(b, temp);
+    }
+
+    /**
+     * Reads a range of elements into a buffer
+     *
+     * @param from index of the first element to read
+     * @param buffer buffer to read into
+     * @param offset starting position in the buffer
+     * @param length number of elements to read
+     */
+    @Override
+    public void read(long from, double[] buffer, int offset, int length) {
+        checkRange(from, length);
+
+        long position = from * ELEMENT_LENGTH;
+
+        while (length > 0) {
+            ByteBuffer segment = segmentAt(position);
+            int count = Math.min(length, segment.remaining() / ELEMENT_LENGTH);
+
+            segment.asDoubleBuffer().get(buffer, offset, count);
+
+            position += (long) count * ELEMENT_LENGTH;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Writes elements from a buffer into a range of the array
+     *
+     * @param from index of the first element to write
+     * @param buffer buffer with the new values
+     * @param offset starting position in the buffer
+     * @param length number of elements to write
+     */
+    @Override
+    public void write(long from, double[] buffer, int offset, int length) {
+        checkRange(from, length);
+
+        long position = from * ELEMENT_LENGTH;
+
+        while (length > 0) {
+            ByteBuffer segment = segmentAt(position);
+            int count = Math.min(length, segment.remaining() / ELEMENT_LENGTH);
+
+            segment.asDoubleBuffer().put(buffer, offset, count);
+
+            position += (long) count * ELEMENT_LENGTH;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Copies a range of elements into another array
+     *
+     * @param from index of the first element to copy
+     * @param target array to copy into (can be this array)
+     * @param to index of the first element in the target array
+     * @param length number of elements to copy
+     */
+    @Override
+    public void copy(long from, DataArray target, long to, long length) {
+        checkRange(from, length);
+
+        if (copyBuffer == null || copyBuffer.length < Math.min(length, COPY_LENGTH)) {
+            copyBuffer = new double[(int) Math.min(length, COPY_LENGTH)];
+        }
+
+        // copy overlapping ranges of the same array from the end, so elements aren't overwritten before they're copied
+        boolean backwards = target == this && to > from && to < from + length;
+
+        long copied = 0;
+
+        while (copied < length) {
+            int count = (int) Math.min(length - copied, copyBuffer.length);
+            long start = backwards ? length - copied - count : copied;
+
+            read(from + start, copyBuffer, 0, count);
+            target.write(to + start, copyBuffer, 0, count);
+
+            copied += count;
+        }
+    }
+
+    /**
+     * Gets a view of the segment that contains the given position
+     *
+     * @param position offset in bytes from the beginning of the array
+     * @return segment view positioned at the given offset
+     */
+    private ByteBuffer segmentAt(long position) {
+        ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)].duplicate().order(ByteOrder.nativeOrder());
+        segment.position((int) (position & SEGMENT_MASK));
+
+        return segment;
+    }
+
+    /**
+     * Checks if a range of elements is inside the array
+     *
+     * @param from index of the first element
+     * @param length number of elements
+     */
+    private void checkRange(long from, long length) {
+        if (from < 0 || length < 0 || from + length > this.length) {
+            throw new IllegalArgumentException("DataArray index out of bounds");
+        }
+    }
+
+    /**
+     * Prints the whole data structure
+     */
+    @Override
+    public void print() {
+        for (long i = 0; i < length; i++) {
+            System.out.printf("%.3f\n", readElement(i));
+        }
+    }
+
+    /**
+     * Prints a portion of the data structure
+     *
+     * @param from   starting element index
+     * @param length how many elements to print
+     */
+    @Override
+    public void print(long from, long length) {
+        if (from < 0 || from + length > this.length || length <= 0) {
+            throw new IllegalArgumentException("Invalid starting index and/or length");
+        }
+
+        for (long i = from; i < from + length; i++) {
+            System.out.printf("%.3f\n", readElement(i));
+        }
+    }
+
+    /**
+     * Frees the off-heap memory (the array is empty afterwards)
+     */
+    public void close() {
+        for (ByteBuffer segment: segments) {
+            Utils.freeBuffer(segment);
+        }
+
+        segments = new ByteBuffer[0];
+        length = 0;
+    }
+}
@@ -0,0 +1,415 @@
+package com.algo.main.datastructures;
+
+/**
+ * Hash table with it's elements stored in RAM in flat arrays. Uses open addressing with
+ * Robin Hood linear probing as collision resolution strategy: an element that is further from
+ * it's home slot takes the place of an element that is closer to it's own, which keeps probe
+ * sequences short. Removed elements are filled by shifting the following elements back,
+ * so no tombstones are needed. The hash function is pluggable
+ */
+@SuppressWarnings("unused")
+public class OpenAddressingHashTable implements DataHashTable {
+
+    // how many of the hash table needs to be filled in order for it to expand
+    private static final double loadFactor = 0.75;
+
+    // slot hash value that marks an empty slot (stored hashes always have the highest bit set)
+    private static final int EMPTY = 0;
+
+    // keys, values and cached hashes of the elements, an element uses the same index in all arrays
+    private String[] keys;
+    private String[] values;
+    private int[] hashes;
+
+    // function computing the hash codes of the keys
+    private HashFunction hashFunction;
+
+    // number of slots (always a power of two)
+    private int capacity;
+
+    // capacity - 1, used instead of modulo
+    private int mask;
+
+    // how many elements are in the table
+    private int elements;
+
+    /**
+     * Class constructor
+     * @param capacity how many slots does the hash table have initially (rounded up to a power of two)
+     */
+    public OpenAddressingHashTable(int capacity) {
+        this(capacity, StandardHashFunction.MIXED);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param capacity how many slots does the hash table have initially (rounded up to a power of two)
+     * @param hashFunction function computing the hash codes of the keys (the low bits select the slot)
+     */
+    public OpenAddressingHashTable(int capacity, HashFunction hashFunction) {
+        this.hashFunction = hashFunction;
+
+        allocate(powerOfTwo(capacity));
+    }
+
+    /**
+     * Creates empty slot arrays
+     *
+     * @param capacity number of slots (power of two)
+     */
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+
+        keys = new String[capacity];
+        values = new String[capacity];
+        hashes = new int[capacity];
+    }
+
+    /**
+     * Gets the smallest power of two that is not less than the given number
+     *
+     * @param number number to round up
+     * @return power of two
+     */
+    private static int powerOfTwo(int number) {
+        int result = 2;
+
+        while (result < number && result < (1 << 30)) {
+            result <<= 1;
+        }
+
+        return result;
+    }
+
+    /**
+     * Inserts a new element or updates the existing one
+     *
+     * @param key   key of the element
+     * @param value value of the element
+     *
+     * @return put value
+     */
+    @Override
+    public String put(String key, String value) {
+        int hash = storedHash(key);
+
+        int index = find(key, hash);
+
+        if (index != -1) {
+            values[index] = value;
+            return value;
+        }
+
+        // resize the hash table if needed
+        if (elements + 1 > capacity * loadFactor) {
+            resize(capacity * 2);
+        }
+
+        insert(hash, key, value);
+
+        elements++;
+
+        return value;
+    }
+
+    /**
+     * Inserts new elements or updates the existing ones. The table is resized at most once
+     * for the whole batch instead of checking the size for every element
+     *
+     * @param keys keys of the elements
+     * @param values values of the elements (values[i] is the value of keys[i])
+     */
+    @Override
+    public void putAll(String[] keys, String[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("There must be a value for every key");
+        }
+
+        // grow to the final size up front (existing keys are counted too, so the table may end up larger)
+        int newCapacity = capacity;
+
+        while (elements + keys.length > newCapacity * loadFactor && newCapacity < (1 << 30)) {
+            newCapacity <<= 1;
+        }
+
+        if (newCapacity != capacity) {
+            resize(newCapacity);
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            int hash = storedHash(keys[i]);
+            int index = find(keys[i], hash);
+
+            if (index != -1) {
+                this.values[index] = values[i];
+            } else {
+                insert(hash, keys[i], values[i]);
+                elements++;
+            }
+        }
+    }
+
+    /**
+     * Inserts an element that is not in the table yet
+     *
+     * @param hash stored hash of the key
+     * @param key key of the element
+     * @param value value of the element
+     */
+    private void insert(int hash, String key, String value) {
+        int index = hash & mask;
+        int distance = 0;
+
+        while (hashes[index] != EMPTY) {
+            int existingDistance = probeDistance(index);
+
+            // the existing element is closer to it's home slot, so it gives it's place away
+            // and continues looking for a slot instead of the inserted element
+            if (existingDistance < distance) {
+                int tempHash = hashes[index];
+                String tempKey = keys[index];
+                String tempValue = values[index];
+
+                hashes[index] = hash;
+                keys[index] = key;
+                values[index] = value;
+
+                hash = tempHash;
+                key = tempKey;
+                value = tempValue;
+
+                distance = existingDistance;
+            }
+
+            index = (index + 1) & mask;
+            distance++;
+        }
+
+        hashes[index] = hash;
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    /**
+     * Finds the slot of a key
+     *
+     * @param key key to look for
+     * @param hash stored hash of the key
+     * @return slot index, -1 if the key doesn't exist
+     */
+    private int find(String key, int hash) {
+        int index = hash & mask;
+        int distance = 0;
+
+        while (hashes[index] != EMPTY) {
+            // the key would have taken this slot if it was in the table
+            if (probeDistance(index) < distance) {
+                return -1;
+            }
+
+            if (hashes[index] == hash && keys[index].equals(key)) {
+                return index;
+            }
+
+            index = (index + 1) & mask;
+            distance++;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets how far the element in the given slot is from it's home slot
+     *
+     * @param index slot index
+     * @return probe distance
+     */
+    private int probeDistance(int index) {
+        return (index - (hashes[index] & mask)) & mask;
+    }
+
+    /**
+     * Resizes the hash table
+     *
+     * @param newCapacity new number of slots (power of two)
+     */
+    private void resize(int newCapacity) {
+        String[] oldKeys = keys;
+        String[] oldValues = values;
+        int[] oldHashes = hashes;
+
+        allocate(newCapacity);
+
+        // cached hashes are reused, keys are not hashed again
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != EMPTY) {
+                insert(oldHashes[i], oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes an element from the hash table
+     *
+     * @param key key of the element
+     * @return removed value, null if the key doesn't exist
+     */
+    public String remove(String key) {
+        int index = find(key, storedHash(key));
+
+        if (index == -1) {
+            return null;
+        }
+
+        String value = values[index];
+
+        // shift the following elements of the probe sequence back by one slot
+        int next = (index + 1) & mask;
+
+        while (hashes[next] != EMPTY && probeDistance(next) > 0) {
+            hashes[index] = hashes[next];
+            keys[index] = keys[next];
+            values[index] = values[next];
+
+            index = next;
+            next = (next + 1) & mask;
+        }
+
+        hashes[index] = EMPTY;
+        keys[index] = null;
+        values[index] = null;
+
+        elements--;
+
+        return value;
+    }
+
+    /**
+     * Gets an element from the hash table
+     *
+     * @param key key value of the element
+     * @return value of the element with the specified key, null if the key doesn't exist
+     */
+    @Override
+    public String get(String key) {
+        int index = find(key, storedHash(key));
+
+        return index == -1 ? null : values[index];
+    }
+
+    /**
+     * Gets many elements from the hash table at once
+     *
+     * @param keys key values of the elements
+     * @return values of the elements in the same order as the keys, null for the keys that don't exist
+     */
+    @Override
+    public String[] getAll(String[] keys) {
+        String[] result = new String[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            int index = find(keys[i], storedHash(keys[i]));
+
+            result[i] = index == -1 ? null : values[index];
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of elements in the hash table
+     *
+     * @return
+     */
+    @Override
+    public int elementCount() {
+        return elements;
+    }
+
+    /**
+     * Returns the number of chains in the hash table. There are no chains in an open addressing table,
+     * so this is the number of clusters (runs of occupied slots)
+     *
+     * @return
+     */
+    @Override
+    public int chainCount() {
+        int clusters = 0;
+
+        for (int i = 0; i < capacity; i++) {
+            if (hashes[i] != EMPTY && hashes[(i - 1) & mask] == EMPTY) {
+                clusters++;
+            }
+        }
+
+        // the whole table is one cluster
+        if (clusters == 0 && elements > 0) {
+            clusters = 1;
+        }
+
+        return clusters;
+    }
+
+    /**
+     * Gets the longest distance between an element and it's home slot
+     *
+     * @return maximum probe distance
+     */
+    public int maxProbeDistance() {
+        int max = 0;
+
+        for (int i = 0; i < capacity; i++) {
+            if (hashes[i] != EMPTY) {
+                max = Math.max(max, probeDistance(i));
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Returns the hash function value for the given key
+     *
+     * @param key key to hash
+     * @return hash function value (home slot of the key)
+     */
+    @Override
+    public int hash(String key) {
+        return storedHash(key) & mask;
+    }
+
+    /**
+     * Counts the elements by their distance from their home slot. A search for an element
+     * probes one slot more than it's distance
+     *
+     * @return histogram, element i is the number of elements i slots away from their home slot
+     */
+    public int[] probeLengthHistogram() {
+        int[] histogram = new int[maxProbeDistance() + 1];
+
+        for (int i = 0; i < capacity; i++) {
+            if (hashes[i] != EMPTY) {
+                histogram[probeDistance(i)]++;
+            }
+        }
+
+        return histogram;
+    }
+
+    /**
+     * Computes the hash that is stored in the slot. The highest bit is always set, so a stored
+     * hash is never equal to EMPTY
+     *
+     * @param key key to hash
+     * @return stored hash
+     */
+    private int storedHash(String key) {
+        return hashFunction.hash(key) | Integer.MIN_VALUE;
+    }
+
+    // GETTERS
+    public int getCapacity() { return capacity; }
+    public HashFunction getHashFunction() { return hashFunction; }
+}
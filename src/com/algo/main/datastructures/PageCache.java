@@ -0,0 +1,326 @@
+package com.algo.main.datastructures;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Bounded pool of fixed-size file pages. Pages are evicted in least recently used order,
+ * modified (dirty) pages are written back to the file when they are evicted or flushed.
+ *
+ * In no-steal mode dirty pages are never evicted, so the file only changes when the pages are flushed
+ * (the pool can grow past it's capacity until then). This is used with a write-ahead log
+ */
+@SuppressWarnings("unused")
+public class PageCache {
+
+    // file the pages belong to
+    private FileChannel channel;
+
+    // number of bytes in a single page
+    private int pageSize;
+
+    // how many pages can be held in memory at once
+    private int capacity;
+
+    // cached pages in access order (least recently used first)
+    private LinkedHashMap<Long, Page> pages;
+
+    // last accessed page, checked before the map because neighbouring accesses usually hit the same page
+    private Page lastPage;
+
+    // cache statistics
+    private long hits;
+    private long misses;
+
+    // number of dirty pages in the pool
+    private int dirtyPages;
+
+    // whether dirty pages are kept in the pool until they are flushed
+    private boolean noSteal;
+
+    /**
+     * Class constructor
+     *
+     * @param channel file the pages are read from and written to
+     * @param pageSize number of bytes in a single page
+     * @param memoryBudget maximum number of bytes the cached pages can occupy
+     */
+    public PageCache(FileChannel channel, int pageSize, long memoryBudget) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.capacity = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryBudget / pageSize));
+
+        pages = new LinkedHashMap<>(16, 0.75f, true); // true: access order
+    }
+
+    /**
+     * Gets a page for reading
+     *
+     * @param pageNumber number of the page (offset in the file divided by the page size)
+     * @return page data, valid until the next call to the cache
+     */
+    public ByteBuffer readPage(long pageNumber) {
+        return page(pageNumber).data;
+    }
+
+    /**
+     * Gets a page for writing (the page is marked as dirty)
+     *
+     * @param pageNumber number of the page (offset in the file divided by the page size)
+     * @return page data, valid until the next call to the cache
+     */
+    public ByteBuffer writePage(long pageNumber) {
+        Page page = page(pageNumber);
+
+        if (!page.dirty) {
+            page.dirty = true;
+            dirtyPages++;
+        }
+
+        return page.data;
+    }
+
+    /**
+     * Gets a page from the pool, loads it from the file if it's not cached
+     *
+     * @param pageNumber number of the page
+     * @return cached page
+     */
+    private Page page(long pageNumber) {
+        if (lastPage != null && lastPage.number == pageNumber) {
+            hits++;
+            return lastPage;
+        }
+
+        Page page = pages.get(pageNumber);
+
+        if (page != null) {
+            hits++;
+        } else {
+            misses++;
+
+            page = load(pageNumber);
+
+            pages.put(pageNumber, page);
+        }
+
+        lastPage = page;
+
+        return page;
+    }
+
+    /**
+     * Reads a page from the file, evicting the least recently used page if the pool is full
+     *
+     * @param pageNumber number of the page to read
+     * @return loaded page
+     */
+    private Page load(long pageNumber) {
+        ByteBuffer buffer = null;
+
+        // a pool that grew past it's capacity in no-steal mode shrinks back once it's pages are flushed
+        Iterator<Page> eldest = pages.values().iterator();
+
+        while (pages.size() >= capacity && eldest.hasNext()) {
+            Page evicted = eldest.next();
+
+            // in no-steal mode the least recently used clean page is evicted instead
+            if (noSteal && evicted.dirty) {
+                continue;
+            }
+
+            eldest.remove();
+
+            if (evicted.dirty) {
+                writeBack(evicted);
+            }
+
+            if (evicted == lastPage) {
+                lastPage = null;
+            }
+
+            // reuse the evicted page's buffer, so a full pool doesn't allocate anything
+            buffer = evicted.data;
+        }
+
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(pageSize);
+        } else {
+            buffer.clear();
+        }
+
+        try {
+            long position = pageNumber * pageSize;
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break; // end of file, the rest of the page is empty
+                }
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+
+        // zero the part of the page that is past the end of the file
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) 0);
+        }
+
+        buffer.clear();
+
+        return new Page(pageNumber, buffer);
+    }
+
+    /**
+     * Writes a page to the file
+     *
+     * @param page page to write
+     */
+    private void writeBack(Page page) {
+        try {
+            ByteBuffer buffer = page.data.duplicate();
+            buffer.clear();
+
+            long position = page.number * pageSize;
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+
+            page.dirty = false;
+            dirtyPages--;
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes all dirty pages to the file (pages stay cached)
+     */
+    public void flush() {
+        for (Page page: pages.values()) {
+            if (page.dirty) {
+                writeBack(page);
+            }
+        }
+    }
+
+    /**
+     * Writes dirty pages in a range back to the file (pages stay cached)
+     *
+     * @param fromPage number of the first page in the range
+     * @param toPage number of the last page in the range
+     */
+    public void flush(long fromPage, long toPage) {
+        for (Page page: pages.values()) {
+            if (page.dirty && page.number >= fromPage && page.number <= toPage) {
+                writeBack(page);
+            }
+        }
+    }
+
+    /**
+     * Writes dirty pages in a range back to the file and removes them from the pool.
+     * Used before the file is modified without going through the cache
+     *
+     * @param fromPage number of the first page in the range
+     * @param toPage number of the last page in the range
+     */
+    public void invalidate(long fromPage, long toPage) {
+        Iterator<Page> iterator = pages.values().iterator();
+
+        while (iterator.hasNext()) {
+            Page page = iterator.next();
+
+            if (page.number >= fromPage && page.number <= toPage) {
+                if (page.dirty) {
+                    writeBack(page);
+                }
+
+                iterator.remove();
+
+                if (page == lastPage) {
+                    lastPage = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the numbers of all dirty pages
+     *
+     * @return page numbers in ascending order
+     */
+    public long[] getDirtyPageNumbers() {
+        long[] numbers = new long[dirtyPages];
+        int count = 0;
+
+        for (Page page: pages.values()) {
+            if (page.dirty) {
+                numbers[count++] = page.number;
+            }
+        }
+
+        Arrays.sort(numbers);
+
+        return numbers;
+    }
+
+    /**
+     * Writes dirty pages back and removes every page from the pool
+     */
+    public void clear() {
+        flush();
+
+        pages.clear();
+        lastPage = null;
+    }
+
+    /**
+     * Resets hit and miss counters
+     */
+    public void resetStatistics() {
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Turns no-steal mode on or off (dirty pages are not evicted in no-steal mode)
+     *
+     * @param noSteal true to keep dirty pages until they are flushed
+     */
+    public void setNoSteal(boolean noSteal) {
+        this.noSteal = noSteal;
+    }
+
+    // GETTERS
+    public int getPageSize() { return pageSize; }
+    public int getCapacity() { return capacity; }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public int getDirtyPages() { return dirtyPages; }
+    public boolean isNoSteal() { return noSteal; }
+
+    /**
+     * Cached file page
+     */
+    private static class Page {
+
+        private long number;
+        private ByteBuffer data;
+        private boolean dirty;
+
+        private Page(long number, ByteBuffer data) {
+            this.number = number;
+            this.data = data;
+        }
+    }
+}
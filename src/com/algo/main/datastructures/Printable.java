@@ -16,5 +16,5 @@ public interface Printable {
      * @param from starting element index
      * @param length how many elements to print
      */
-    void print(int from, int length);
+    void print(long from, long length);
 }
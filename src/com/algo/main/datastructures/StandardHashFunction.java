@@ -0,0 +1,69 @@
+package com.algo.main.datastructures;
+
+/**
+ * Hash functions the hash tables can use
+ */
+public enum StandardHashFunction implements HashFunction {
+
+    // String.hashCode, similar keys differ only in the low bits of their codes
+    JAVA {
+        @Override
+        public int hash(String key) {
+            return key.hashCode();
+        }
+    },
+
+    // String.hashCode with it's bits mixed (multiplied by the golden ratio and the high half folded
+    // into the low half), cheap and good enough for power-of-two tables
+    MIXED {
+        @Override
+        public int hash(String key) {
+            int code = key.hashCode() * 0x9E3779B9;
+
+            return code ^ (code >>> 16);
+        }
+    },
+
+    // 32-bit MurmurHash3 over the characters of the key, slower but every character affects every bit
+    MURMUR3 {
+        @Override
+        public int hash(String key) {
+            int hash = 0;
+            int length = key.length();
+
+            // two characters make a 32-bit block
+            for (int i = 0; i + 1 < length; i += 2) {
+                hash ^= mixBlock(key.charAt(i) | (key.charAt(i + 1) << 16));
+                hash = Integer.rotateLeft(hash, 13) * 5 + 0xE6546B64;
+            }
+
+            if ((length & 1) == 1) {
+                hash ^= mixBlock(key.charAt(length - 1));
+            }
+
+            hash ^= length * 2;
+
+            hash ^= hash >>> 16;
+            hash *= 0x85EBCA6B;
+            hash ^= hash >>> 13;
+            hash *= 0xC2B2AE35;
+            hash ^= hash >>> 16;
+
+            return hash;
+        }
+    };
+
+    /**
+     * Mixes a block of MurmurHash3
+     *
+     * @param block 32-bit block of the key
+     * @return mixed block
+     */
+    private static int mixBlock(int block) {
+        block *= 0xCC9E2D51;
+        block = Integer.rotateLeft(block, 15);
+        block *= 0x1B873593;
+
+        return block;
+    }
+}
@@ -0,0 +1,342 @@
+package com.algo.main.datastructures;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of changes that is synced to the disk before the changes are written to the data file.
+ * Records are buffered in memory and many of them are synced with a single fsync (group commit),
+ * when that happens depends on the durability mode. In periodic mode a background thread syncs the log
+ * every interval, so records are not left in memory while the table is idle
+ */
+@SuppressWarnings("unused")
+public class WriteAheadLog {
+
+    /**
+     * IMPORTANT
+     *
+     * Record layout:
+     *   int number of bytes after the checksum
+     *   int CRC32 of the bytes after the checksum
+     *   byte record type
+     *   int length of the first part, first part bytes
+     *   int length of the second part, second part bytes
+     *
+     * A record with a wrong checksum or length is a torn write, it and everything after it is ignored
+     */
+
+    // record types
+    public static final byte PUT = 1;
+    public static final byte REMOVE = 2;
+    public static final byte PAGE = 3;
+    public static final byte DIRECTORY = 4;
+    public static final byte CHECKPOINT = 5;
+
+    // number of buffered bytes that are written to the file even if it's not time to sync yet
+    private static final int MAX_PENDING = 1024 * 1024;
+
+    // log file
+    private RandomAccessFile file;
+
+    // records that are not written to the file yet
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    // when the buffered records are synced
+    private Durability durability;
+
+    // milliseconds between syncs in periodic mode
+    private long syncInterval;
+
+    // whether a batch of operations is in progress (the log is synced when it ends)
+    private boolean inBatch;
+
+    // whether records were appended since the last sync
+    private boolean unsynced;
+
+    // thread syncing the log in periodic mode, null in batch mode
+    private ScheduledExecutorService syncTimer;
+
+    // number of fsync calls
+    private long syncs;
+
+    /**
+     * Class constructor, opens the log for appending (an existing log is kept)
+     *
+     * @param fileName log file
+     * @param durability when the log is synced
+     * @param syncInterval milliseconds between syncs in periodic mode
+     */
+    public WriteAheadLog(String fileName, Durability durability, long syncInterval) {
+        if (durability == Durability.NONE) {
+            throw new IllegalArgumentException("A log is not needed without durability");
+        }
+
+        if (syncInterval < 1) {
+            throw new IllegalArgumentException("Sync interval must be at least 1 millisecond");
+        }
+
+        this.durability = durability;
+        this.syncInterval = syncInterval;
+
+        try {
+            file = new RandomAccessFile(fileName, "rw");
+            file.seek(file.length());
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+
+        if (durability == Durability.PERIODIC) {
+            syncTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-sync-" + fileName);
+                thread.setDaemon(true);
+
+                return thread;
+            });
+
+            syncTimer.scheduleAtFixedRate(this::syncIfNeeded, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Adds a record to the log buffer
+     *
+     * @param type record type
+     * @param first first part of the record
+     * @param second second part of the record
+     */
+    public synchronized void append(byte type, byte[] first, byte[] second) {
+        ByteBuffer record = ByteBuffer.allocate(17 + first.length + second.length);
+
+        record.position(8);
+        record.put(type);
+        record.putInt(first.length);
+        record.put(first);
+        record.putInt(second.length);
+        record.put(second);
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 8, record.capacity() - 8);
+
+        record.putInt(0, record.capacity() - 8);
+        record.putInt(4, (int) crc.getValue());
+
+        pending.write(record.array(), 0, record.capacity());
+        unsynced = true;
+
+        if (pending.size() >= MAX_PENDING) {
+            writePending();
+        }
+    }
+
+    /**
+     * Tells the log that an operation was logged. Syncs the log if the durability mode requires it
+     * (in periodic mode the log is synced by the timer)
+     */
+    public synchronized void operationDone() {
+        if (durability == Durability.BATCH && !inBatch) {
+            commit();
+        }
+    }
+
+    /**
+     * Syncs the log if records were appended since the last sync, called by the timer in periodic mode
+     */
+    private synchronized void syncIfNeeded() {
+        if (unsynced && file.getChannel().isOpen()) {
+            commit();
+        }
+    }
+
+    /**
+     * Starts a batch of operations, in batch mode the log is synced once when the batch ends
+     */
+    public synchronized void beginBatch() {
+        inBatch = true;
+    }
+
+    /**
+     * Ends a batch of operations
+     */
+    public synchronized void endBatch() {
+        inBatch = false;
+
+        operationDone();
+    }
+
+    /**
+     * Writes the buffered records to the log file and syncs it
+     */
+    public synchronized void commit() {
+        writePending();
+
+        try {
+            file.getChannel().force(false);
+            syncs++;
+            unsynced = false;
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the buffered records to the log file without syncing it
+     */
+    private void writePending() {
+        if (pending.size() == 0) {
+            return;
+        }
+
+        try {
+            file.write(pending.toByteArray());
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+
+        pending.reset();
+    }
+
+    /**
+     * Removes all records from the log (called after they are written to the data file)
+     */
+    public synchronized void truncate() {
+        pending.reset();
+        unsynced = false;
+
+        try {
+            file.setLength(0);
+            file.seek(0);
+            file.getChannel().force(true);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets the size of the log including the buffered records
+     *
+     * @return size in bytes
+     */
+    public synchronized long length() {
+        try {
+            return file.length() + pending.size();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+
+        return pending.size();
+    }
+
+    /**
+     * Stops the sync timer, syncs the buffered records and closes the log file
+     */
+    public synchronized void close() {
+        if (syncTimer != null) {
+            syncTimer.shutdown();
+            syncTimer = null;
+        }
+
+        commit();
+
+        try {
+            file.close();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads all complete records of a log file. The torn record at the end of the file
+     * (if there is one) is cut off, so records appended later follow the complete ones
+     *
+     * @param fileName log file
+     * @return records in the order they were written
+     * @throws IOException if the log file exists but can't be read
+     */
+    public static List<Record> read(String fileName) throws IOException {
+        List<Record> records = new ArrayList<>();
+
+        if (!new File(fileName).exists()) {
+            return records;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+            byte[] bytes = new byte[(int) file.length()];
+            file.readFully(bytes);
+
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+            // end of the last complete record
+            int valid = 0;
+
+            while (buffer.remaining() >= 8) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+
+                if (length < 9 || length > buffer.remaining()) {
+                    break;
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(bytes, buffer.position(), length);
+
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                byte type = buffer.get();
+
+                byte[] first = new byte[buffer.getInt()];
+                buffer.get(first);
+
+                byte[] second = new byte[buffer.getInt()];
+                buffer.get(second);
+
+                records.add(new Record(type, first, second));
+
+                valid = buffer.position();
+            }
+
+            // everything after the last complete record is garbage from an interrupted write
+            if (valid < bytes.length) {
+                file.setLength(valid);
+            }
+        }
+
+        return records;
+    }
+
+    // GETTERS
+    public Durability getDurability() { return durability; }
+    public long getSyncInterval() { return syncInterval; }
+    public synchronized long getSyncs() { return syncs; }
+
+    /**
+     * Record read from the log
+     */
+    public static class Record {
+
+        private byte type;
+        private byte[] first;
+        private byte[] second;
+
+        private Record(byte type, byte[] first, byte[] second) {
+            this.type = type;
+            this.first = first;
+            this.second = second;
+        }
+
+        // GETTERS
+        public byte getType() { return type; }
+        public byte[] getFirst() { return first; }
+        public byte[] getSecond() { return second; }
+    }
+}
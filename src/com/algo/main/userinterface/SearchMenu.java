@@ -1,8 +1,12 @@
 package com.algo.main.userinterface;
 
 import com.algo.main.commands.BackCommand;
+import com.algo.main.commands.ConcurrentSearchCommand;
+import com.algo.main.commands.DurabilityCrashCommand;
+import com.algo.main.commands.DurableInsertCommand;
 import com.algo.main.commands.ExitCommand;
 import com.algo.main.commands.HashSearchCommand;
+import com.algo.main.commands.HashStatisticsCommand;
 
 /**
  * Search algorithm menu
@@ -16,6 +20,10 @@ public class SearchMenu extends Menu {
         super("Search", "Here you can find commands to test\nsearching");
 
         addCommand(new HashSearchCommand());
+        addCommand(new HashStatisticsCommand());
+        addCommand(new ConcurrentSearchCommand());
+        addCommand(new DurableInsertCommand());
+        addCommand(new DurabilityCrashCommand());
         addCommand(new BackCommand());
         addCommand(new ExitCommand());
     }
@@ -15,6 +15,7 @@ public class SortMenu extends Menu {
 
         addCommand(new InsertionSortArrayCommand());
         addCommand(new MergeSortArrayCommand());
+        addCommand(new ExternalSortArrayCommand());
         addCommand(new InsertionSortListCommand());
         addCommand(new MergeSortListCommand());
         addCommand(new BackCommand());